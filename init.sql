@@ -5,6 +5,9 @@ CREATE DATABASE IF NOT EXISTS test
 
 USE cosmoport;
 
+-- the application migrates the schema on startup (src/main/resources/db/migration);
+-- without a history the table below is taken as version 1 and the later versions are applied
+DROP TABLE IF EXISTS flyway_schema_history;
 DROP TABLE IF EXISTS ship;
 
 CREATE TABLE ship
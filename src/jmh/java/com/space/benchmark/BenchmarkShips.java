@@ -0,0 +1,50 @@
+package com.space.benchmark;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Deterministic ship data, so that results of different runs are comparable.
+ */
+public final class BenchmarkShips {
+
+    private static final String[] NAMES = {"Orion", "Daedalus", "Eagle", "Mongoose", "Excalibur", "Explorer",
+            "Icarus", "Hermes", "Odyssey", "Serenity", "Hawk", "Amaterasu", "Cygnus", "Argonaut", "Avalon"};
+    private static final String[] PLANETS = {"Mercury", "Venus", "Earth", "Mars", "Jupiter", "Saturn", "Uranus",
+            "Neptune"};
+
+    private BenchmarkShips() {
+    }
+
+    public static List<Ship> generate(int count) {
+        List<Ship> ships = new ArrayList<>(count);
+        generate(count, ships::add);
+        return ships;
+    }
+
+    // the same ships one at a time, for tables too large to hold in memory
+    public static void generate(int count, Consumer<Ship> consumer) {
+        Random random = new Random(42);
+        Calendar calendar = Calendar.getInstance();
+
+        for (int i = 0; i < count; i++) {
+            Ship ship = new Ship();
+            ship.setName(NAMES[random.nextInt(NAMES.length)] + " " + i);
+            ship.setPlanet(PLANETS[random.nextInt(PLANETS.length)]);
+            ship.setShipType(ShipType.values()[random.nextInt(ShipType.values().length)]);
+            calendar.clear();
+            calendar.set(2800 + random.nextInt(220), random.nextInt(12), 1 + random.nextInt(28));
+            ship.setProdDate(calendar.getTime());
+            ship.setUsed(random.nextBoolean());
+            ship.setSpeed((1 + random.nextInt(99)) / 100.0);
+            ship.setCrewSize(1 + random.nextInt(9999));
+            consumer.accept(ship);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.benchmark.BenchmarkShips;
+import com.space.config.WebConfig;
+import com.space.model.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a /rest/ships response with the ObjectMapper the REST layer uses.
+ * The write* pair streams into a reused buffer, as the message converter streams into
+ * the response, comparing {@link ShipJsonSerializer} with the reflective bean serializer.
+ * Run with -prof gc for the allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipJsonBenchmark {
+
+    @Param({"3", "100"})
+    private int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectWriter reflectiveWriter;
+    private List<Ship> ships;
+    private ByteArrayOutputStream out;
+
+    @Setup
+    public void setup() {
+        writer = new WebConfig().objectMapper().writerFor(new TypeReference<List<Ship>>() {
+        });
+
+        ObjectMapper reflective = Jackson2ObjectMapperBuilder.json().build();
+        reflective.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        reflective.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        reflectiveWriter = reflective.writerFor(new TypeReference<List<Ship>>() {
+        });
+        out = new ByteArrayOutputStream(64 * 1024);
+
+        ships = BenchmarkShips.generate(pageSize);
+        for (int i = 0; i < ships.size(); i++) {
+            ships.get(i).setId((long) i + 1);
+            ships.get(i).setRating(1.5);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeShips() throws JsonProcessingException {
+        return writer.writeValueAsBytes(ships);
+    }
+
+    @Benchmark
+    public int writeShips() throws IOException {
+        out.reset();
+        writer.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeShipsReflective() throws IOException {
+        out.reset();
+        reflectiveWriter.writeValue(out, ships);
+        return out.size();
+    }
+}
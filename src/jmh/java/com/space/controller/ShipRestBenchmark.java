@@ -0,0 +1,90 @@
+package com.space.controller;
+
+import com.space.benchmark.BenchmarkShips;
+import com.space.benchmark.EmbeddedDatabaseConfig;
+import com.space.config.WebConfig;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * List and count requests through the whole stack, from the dispatcher servlet
+ * down to an embedded database, without the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipRestBenchmark {
+
+    @Param({"10000"})
+    private int ships;
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.register(EmbeddedDatabaseConfig.class, WebConfig.class);
+        context.setServletContext(new MockServletContext());
+        context.refresh();
+
+        context.getBean(ShipService.class).createShips(BenchmarkShips.generate(ships));
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String getAllShips() throws Exception {
+        return perform("/rest/ships?shipType=MILITARY&order=RATING&pageSize=3");
+    }
+
+    @Benchmark
+    public String getAllShipsDeepPage() throws Exception {
+        return perform("/rest/ships?order=SPEED&pageNumber=200&pageSize=20");
+    }
+
+    @Benchmark
+    public String getCount() throws Exception {
+        return perform("/rest/ships/count?shipType=MILITARY&minSpeed=0.5");
+    }
+
+    @Benchmark
+    public String getShipPage() throws Exception {
+        return perform("/rest/ships/page?planet=ar&isUsed=true&order=DATE&pageSize=10");
+    }
+
+    private String perform(String url) throws Exception {
+        //the query runs on ShipRequestExecutor, the second dispatch writes its result
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        result.getAsyncResult(TimeUnit.SECONDS.toMillis(10));
+        return mockMvc.perform(asyncDispatch(result)).andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,199 @@
+package com.space.repository;
+
+import com.space.benchmark.BenchmarkShips;
+import com.space.config.AppConfig;
+import com.space.service.ShipRatingEngine;
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered and sorted list and count queries of ShipRestController, as the SQL Hibernate
+ * renders for them, on a MySQL ship table before and after the index migration. The
+ * table is loaded at version 1 and, for indexed runs, migrated with the data in place;
+ * the plan of every query is printed once per trial.
+ *
+ * Runs against the MySQL server of the tests, in a database of its own; set
+ * -Dbenchmark.db.url, -Dbenchmark.db.username and -Dbenchmark.db.password to use another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipIndexBenchmark {
+
+    private static final String DATABASE = "cosmoport_benchmark";
+
+    //GET /rest/ships?minSpeed=0.5&maxSpeed=0.52&order=SPEED
+    private static final String SPEED_RANGE_BY_SPEED =
+            "select * from ship where speed between 0.5 and 0.52 order by speed limit 0, 20";
+    //GET /rest/ships?shipType=MERCHANT&isUsed=false&order=RATING
+    private static final String TYPE_USED_BY_RATING =
+            "select * from ship where shipType = 'MERCHANT' and isUsed = 0 order by rating limit 0, 20";
+    //GET /rest/ships?after=..&before=..&order=DATE, one year of production
+    private static final String DATE_RANGE_BY_DATE =
+            "select * from ship where prodDate between '3000-01-01' and '3000-12-31' order by prodDate limit 0, 20";
+    //GET /rest/ships?minCrewSize=100&maxCrewSize=120, default id order
+    private static final String CREW_SIZE_RANGE_BY_ID =
+            "select * from ship where crewSize between 100 and 120 order by id limit 0, 20";
+    //GET /rest/ships/count?shipType=MERCHANT&isUsed=false&minSpeed=0.1&maxSpeed=0.2
+    private static final String COUNT_TYPE_USED_SPEED =
+            "select count(*) from ship where shipType = 'MERCHANT' and isUsed = 0 and speed between 0.1 and 0.2";
+    //GET /rest/ships/count?minRating=1&maxRating=1.5
+    private static final String COUNT_RATING_RANGE =
+            "select count(*) from ship where rating between 1 and 1.5";
+
+    private static final String INSERT_SHIP = "insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Param({"2000000"})
+    private int ships;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private JdbcTemplate server;
+    private Connection connection;
+    private PreparedStatement speedRangeBySpeed;
+    private PreparedStatement typeUsedByRating;
+    private PreparedStatement dateRangeByDate;
+    private PreparedStatement crewSizeRangeById;
+    private PreparedStatement countTypeUsedSpeed;
+    private PreparedStatement countRatingRange;
+
+    @Setup
+    public void setup() throws SQLException {
+        String url = System.getProperty("benchmark.db.url", "jdbc:mysql://localhost:3306/");
+        String username = System.getProperty("benchmark.db.username", "root");
+        String password = System.getProperty("benchmark.db.password", "root");
+
+        server = new JdbcTemplate(new DriverManagerDataSource(url + "?serverTimezone=UTC", username, password));
+        server.execute("DROP DATABASE IF EXISTS " + DATABASE);
+        server.execute("CREATE DATABASE " + DATABASE + " COLLATE utf8_general_ci");
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                url + DATABASE + "?serverTimezone=UTC&rewriteBatchedStatements=true", username, password);
+        AppConfig.migrations(dataSource).target(MigrationVersion.fromVersion("1")).load().migrate();
+        connection = dataSource.getConnection();
+        load();
+
+        long start = System.nanoTime();
+        if (indexed)
+            AppConfig.migrations(dataSource).load().migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("ANALYZE TABLE ship");
+        System.out.println("\nindexes built in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        for (String sql : new String[]{SPEED_RANGE_BY_SPEED, TYPE_USED_BY_RATING, DATE_RANGE_BY_DATE,
+                CREW_SIZE_RANGE_BY_ID, COUNT_TYPE_USED_SPEED, COUNT_RATING_RANGE}) {
+            Map<String, Object> plan = jdbcTemplate.queryForMap("EXPLAIN " + sql);
+            System.out.println(sql + "\n    type=" + plan.get("type") + " key=" + plan.get("key")
+                    + " rows=" + plan.get("rows") + " extra=" + plan.get("Extra"));
+        }
+
+        speedRangeBySpeed = connection.prepareStatement(SPEED_RANGE_BY_SPEED);
+        typeUsedByRating = connection.prepareStatement(TYPE_USED_BY_RATING);
+        dateRangeByDate = connection.prepareStatement(DATE_RANGE_BY_DATE);
+        crewSizeRangeById = connection.prepareStatement(CREW_SIZE_RANGE_BY_ID);
+        countTypeUsedSpeed = connection.prepareStatement(COUNT_TYPE_USED_SPEED);
+        countRatingRange = connection.prepareStatement(COUNT_RATING_RANGE);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        server.execute("DROP DATABASE IF EXISTS " + DATABASE);
+    }
+
+    @Benchmark
+    public long speedRangeBySpeed() throws SQLException {
+        return read(speedRangeBySpeed);
+    }
+
+    @Benchmark
+    public long typeUsedByRating() throws SQLException {
+        return read(typeUsedByRating);
+    }
+
+    @Benchmark
+    public long dateRangeByDate() throws SQLException {
+        return read(dateRangeByDate);
+    }
+
+    @Benchmark
+    public long crewSizeRangeById() throws SQLException {
+        return read(crewSizeRangeById);
+    }
+
+    @Benchmark
+    public long countTypeUsedSpeed() throws SQLException {
+        return read(countTypeUsedSpeed);
+    }
+
+    @Benchmark
+    public long countRatingRange() throws SQLException {
+        return read(countRatingRange);
+    }
+
+    private static long read(PreparedStatement statement) throws SQLException {
+        long sum = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getLong(1);
+            }
+        }
+        return sum;
+    }
+
+    private void load() throws SQLException {
+        ShipRatingEngine ratingEngine = new ShipRatingEngine();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SHIP)) {
+            int[] batch = {0};
+            BenchmarkShips.generate(ships, ship -> {
+                try {
+                    insert.setString(1, ship.getName());
+                    insert.setString(2, ship.getPlanet());
+                    insert.setString(3, ship.getShipType().name());
+                    insert.setDate(4, new Date(ship.getProdDate().getTime()));
+                    insert.setBoolean(5, ship.getUsed());
+                    insert.setDouble(6, ship.getSpeed());
+                    insert.setInt(7, ship.getCrewSize());
+                    insert.setDouble(8, ratingEngine.rate(ship));
+                    insert.addBatch();
+                    if (++batch[0] % 5000 == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+}
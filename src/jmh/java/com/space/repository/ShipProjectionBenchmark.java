@@ -0,0 +1,128 @@
+package com.space.repository;
+
+import com.space.benchmark.BenchmarkShips;
+import com.space.benchmark.EmbeddedDatabaseConfig;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.service.ShipService;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filtered list page and a full export read as managed entities, the way the list
+ * and export paths did before, against the ShipView constructor projection they use
+ * now. Run with -prof gc to compare the allocation per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipProjectionBenchmark {
+
+    @Param({"10000"})
+    private int ships;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private AnnotationConfigApplicationContext context;
+    private ShipRepository shipRepository;
+    private EntityManagerFactory entityManagerFactory;
+    private TransactionTemplate readOnly;
+
+    private Specification<Ship> notUsed;
+    private Pageable pageable;
+
+    @Setup
+    public void setup() {
+        context = new AnnotationConfigApplicationContext(EmbeddedDatabaseConfig.class);
+        context.getBean(ShipService.class).createShips(BenchmarkShips.generate(ships));
+
+        shipRepository = context.getBean(ShipRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        notUsed = (root, query, cb) -> cb.isFalse(root.get("isUsed"));
+        pageable = PageRequest.of(3, pageSize, Sort.by("speed").and(Sort.by("id")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Ship> entityPage() {
+        return shipRepository.findAll(notUsed, pageable);
+    }
+
+    @Benchmark
+    public Page<ShipView> viewPage() {
+        return shipRepository.findPage(notUsed, pageable);
+    }
+
+    // the export before the projection: every row is loaded as an entity and detached
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void entityExport(Blackhole blackhole) {
+        readOnly.execute(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Ship> query = cb.createQuery(Ship.class);
+            Root<Ship> root = query.from(Ship.class);
+            query.where(notUsed.toPredicate(root, query, cb)).orderBy(cb.asc(root.get("id")));
+
+            Query<Ship> scrollQuery = entityManager.createQuery(query).unwrap(Query.class);
+            scrollQuery.setReadOnly(true);
+            try (ScrollableResults results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    Ship ship = (Ship) results.get(0);
+                    entityManager.detach(ship);
+                    blackhole.consume(ship);
+                }
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void viewExport(Blackhole blackhole) {
+        readOnly.execute(status -> {
+            shipRepository.scroll(notUsed, Sort.by("id"), 0, blackhole::consume);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.space.service;
+
+import com.space.benchmark.BenchmarkShips;
+import com.space.model.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShipRatingEngine against the Calendar and BigDecimal calculation it replaced,
+ * for a single ship and for a bulk recompute. Run with -prof gc to see allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipRatingBenchmark {
+
+    private static final int BULK_SIZE = 100_000;
+
+    private ShipRatingEngine engine;
+    private Ship ship;
+    private List<Ship> ships;
+
+    @Setup
+    public void setup() {
+        engine = new ShipRatingEngine();
+        ships = BenchmarkShips.generate(BULK_SIZE);
+        ship = ships.get(0);
+    }
+
+    @Benchmark
+    public Double legacyRate() {
+        return legacyRating(ship);
+    }
+
+    @Benchmark
+    public Double engineRate() {
+        return engine.rate(ship);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Ship> legacyRateAll() {
+        for (Ship ship : ships) {
+            ship.setRating(legacyRating(ship));
+        }
+        return ships;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Ship> engineRateAll() {
+        engine.rateAll(ships);
+        return ships;
+    }
+
+    // ShipServiceImpl.calculateRating before the engine
+    private static Double legacyRating(Ship ship) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(ship.getProdDate());
+        int year = cal.get(Calendar.YEAR);
+
+        BigDecimal raiting = new BigDecimal((80 * ship.getSpeed() * (ship.getUsed() ? 0.5 : 1)) / (3019 - year + 1));
+        raiting = raiting.setScale(2, RoundingMode.HALF_UP);
+        return raiting.doubleValue();
+    }
+}
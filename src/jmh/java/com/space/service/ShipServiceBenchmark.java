@@ -0,0 +1,84 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work of ShipServiceImpl that does not touch the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipServiceBenchmark {
+
+    private ShipServiceImpl service;
+    private Ship ship;
+    private ShipFilter filter;
+    private String id;
+
+    @Setup
+    public void setup() {
+        service = new ShipServiceImpl();
+        service.setTextIndex(new ShipTextIndex());
+        service.setRatingEngine(new ShipRatingEngine());
+
+        ship = new Ship();
+        ship.setName("Orion III");
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(32367628329660L));
+        ship.setUsed(true);
+        ship.setSpeed(0.82);
+        ship.setCrewSize(617);
+
+        //every parameter getAllShips can bind
+        filter = new ShipFilter();
+        filter.setName("rion");
+        filter.setPlanet("ar");
+        filter.setShipType(ShipType.MERCHANT);
+        filter.setAfter(32178412329666L);
+        filter.setBefore(32998348329681L);
+        filter.setIsUsed(true);
+        filter.setMinSpeed(0.1);
+        filter.setMaxSpeed(0.9);
+        filter.setMinCrewSize(10);
+        filter.setMaxCrewSize(5000);
+        filter.setMinRating(0.5);
+        filter.setMaxRating(10.0);
+
+        id = "12345";
+    }
+
+    @Benchmark
+    public Ship checkShipParams() {
+        service.checkShipParams(ship);
+        return ship;
+    }
+
+    @Benchmark
+    public Long checkAndParseId() {
+        return service.checkAndParseId(id);
+    }
+
+    @Benchmark
+    public Specification<Ship> filterBy() {
+        return service.filterBy(filter);
+    }
+}
@@ -0,0 +1,74 @@
+package com.space.service;
+
+import com.space.benchmark.BenchmarkShips;
+import com.space.model.Ship;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How trigram candidate lookup scales with the table size, next to the linear
+ * scan a LIKE '%...%' without the index has to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipTextIndexBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int ships;
+
+    @Param({"Odyssey 7", "erm"})
+    private String substring;
+
+    private ShipTextIndex index;
+    private String[] names;
+    private String normalized;
+
+    @Setup
+    public void setup() {
+        index = new ShipTextIndex();
+        index.setEnabled(true);
+        index.setMaxCandidates(Integer.MAX_VALUE);
+
+        List<Ship> generated = BenchmarkShips.generate(ships);
+        names = new String[generated.size()];
+        for (int i = 0; i < generated.size(); i++) {
+            Ship ship = generated.get(i);
+            ship.setId((long) i + 1);
+            index.shipCreated(ship);
+            names[i] = ShipTextIndex.normalize(ship.getName());
+        }
+        normalized = ShipTextIndex.normalize(substring);
+    }
+
+    @Benchmark
+    public Set<Long> findCandidates() {
+        return index.findCandidates(ShipTextIndex.Field.NAME, substring);
+    }
+
+    @Benchmark
+    public int scan() {
+        int matches = 0;
+        for (String name : names) {
+            if (name.contains(normalized))
+                matches++;
+        }
+        return matches;
+    }
+}
@@ -1,11 +1,27 @@
 package com.space.config;
 
+import com.space.metrics.EntityCacheMetrics;
+import com.space.metrics.HandlerLatencyMetrics;
+import com.space.metrics.HibernateMetrics;
+import com.space.metrics.JdbcTimeListener;
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.SlowQueryDataSource;
+import com.space.metrics.SlowQueryLog;
+import com.space.repository.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -14,20 +30,33 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.SharedCacheMode;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
 @EnableJpaRepositories(basePackages = "com.space.repository")
+@PropertySource("classpath:cosmoport.properties")
 public class AppConfig {
 
+    private Environment env;
+
+    @Autowired
+    public void setEnv(Environment env) {
+        this.env = env;
+    }
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
+        em.setSharedCacheMode(SharedCacheMode.ENABLE_SELECTIVE);
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
@@ -38,12 +67,90 @@ public class AppConfig {
 
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = poolConfig("cosmoport", env.getRequiredProperty("db.url"));
+        config.setMetricsTrackerFactory(poolMetrics());
+        HikariDataSource primary = new HikariDataSource(config);
+
+        String[] replicaUrls = env.getProperty("db.replica.urls", String[].class, new String[0]);
+        if (replicaUrls.length == 0)
+            return primary;
+
+        //the pool metrics follow the primary only
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            replicas.add(new HikariDataSource(poolConfig("cosmoport-replica-" + (i + 1), replicaUrls[i])));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, env.getProperty("db.replica.readYourWritesMs", Long.class, 1000L));
+    }
+
+    private HikariConfig poolConfig(String poolName, String url) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(env.getRequiredProperty("db.driver"));
+        config.setJdbcUrl(url);
+        config.setUsername(env.getRequiredProperty("db.username"));
+        config.setPassword(env.getRequiredProperty("db.password"));
+
+        config.setMinimumIdle(env.getProperty("db.pool.minimumIdle", Integer.class, 2));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maximumPoolSize", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.connectionTimeoutMs", Long.class, 3000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idleTimeoutMs", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.maxLifetimeMs", Long.class, 1800000L));
+
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", env.getProperty("db.statementCache.size", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", env.getProperty("db.statementCache.sqlLimit", "2048"));
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+
+        //statements are timed under the pool, the driver connection is opened the way Hikari would
+        if (env.getProperty("db.slowQuery.enabled", Boolean.class, false)) {
+            config.setDataSource(new SlowQueryDataSource(new DriverDataSource(config.getJdbcUrl(), config.getDriverClassName(),
+                    config.getDataSourceProperties(), config.getUsername(), config.getPassword()), slowQueryLog()));
+        }
+
+        config.setRegisterMbeans(true);
+        return config;
+    }
+
+    @Bean(initMethod = "migrate")
+    public Flyway flyway() {
+        return migrations(dataSource()).load();
+    }
+
+    // schemas set up by init.sql have the ship table but no history yet, they start out at version 1
+    public static FluentConfiguration migrations(DataSource dataSource) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public EntityCacheMetrics entityCacheMetrics() {
+        return new EntityCacheMetrics();
+    }
+
+    @Bean
+    public HibernateMetrics hibernateMetrics() {
+        return new HibernateMetrics();
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog() {
+        return new SlowQueryLog(env.getProperty("db.slowQuery.thresholdMs", Long.class, 500L),
+                env.getProperty("db.slowQuery.capacity", Integer.class, 100));
+    }
+
+    @Bean
+    public HandlerLatencyMetrics handlerLatencyMetrics() {
+        return new HandlerLatencyMetrics();
     }
 
     @Bean
@@ -63,6 +170,19 @@ public class AppConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
 
+        //second-level cache for @Cacheable entities, regions are sized in ehcache.xml
+        String secondLevelCache = env.getProperty("db.secondLevelCache.enabled", "false");
+        properties.setProperty("hibernate.cache.use_second_level_cache", secondLevelCache);
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+        properties.setProperty("hibernate.javax.cache.uri", "ehcache.xml");
+        //cache hit counts need statistics too
+        boolean statistics = env.getProperty("db.statistics.enabled", Boolean.class, false) || Boolean.parseBoolean(secondLevelCache);
+        properties.setProperty("hibernate.generate_statistics", Boolean.toString(statistics));
+
+        //adds statement time to a per-thread total for the request latency metrics
+        properties.setProperty("hibernate.session.events.auto", JdbcTimeListener.class.getName());
+
         return properties;
     }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.space.config;
 
+import org.springframework.web.filter.DelegatingFilterProxy;
+import org.springframework.web.servlet.FrameworkServlet;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
+
 public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletInitializer {
 
     @Override
@@ -18,4 +22,12 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
     protected String[] getServletMappings() {
         return new String[]{"/"};
     }
-}
\ No newline at end of file
+
+    @Override
+    protected Filter[] getServletFilters() {
+        //the filter is a bean of the servlet context, looked up on the first request
+        DelegatingFilterProxy admissionFilter = new DelegatingFilterProxy("admissionFilter");
+        admissionFilter.setContextAttribute(FrameworkServlet.SERVLET_CONTEXT_PREFIX + getServletName());
+        return new Filter[]{admissionFilter};
+    }
+}
@@ -0,0 +1,271 @@
+package com.space.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the ship requests in flight per endpoint class and turns the rest away
+ * at once with 503 and Retry-After, before they queue for a thread or a connection.
+ * A request stays in flight until its asynchronous result is written.
+ *
+ * Each limit adapts between minLimit and maxLimit: a request slower than
+ * targetLatencyMs or answered 503 cuts it by a tenth, and while at least half of
+ * it is in use every fast completion adds 1/limit, about one per limit requests.
+ * Export and import take as long as their bodies, so they have a fixed streamLimit
+ * of their own and leave the latency of the other classes alone.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass {
+        LIST, COUNT, WRITE, STREAM
+    }
+
+    private static final String SHIPS = "/rest/ships";
+    private static final double BACKOFF = 0.9;
+
+    private boolean enabled;
+    private int initialLimit;
+    private int minLimit;
+    private int maxLimit;
+    private int streamLimit;
+    private long targetLatencyNanos;
+
+    private volatile Map<EndpointClass, Limiter> limiters;
+
+    @Value("${cosmoport.admission.enabled:true}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Value("${cosmoport.admission.initialLimit:20}")
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    @Value("${cosmoport.admission.minLimit:2}")
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    @Value("${cosmoport.admission.maxLimit:200}")
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    @Value("${cosmoport.admission.streamLimit:4}")
+    public void setStreamLimit(int streamLimit) {
+        this.streamLimit = streamLimit;
+    }
+
+    @Value("${cosmoport.admission.targetLatencyMs:500}")
+    public void setTargetLatencyMs(long targetLatencyMs) {
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+    }
+
+    @Override
+    protected void initFilterBean() {
+        Map<EndpointClass, Limiter> limiters = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass type : EndpointClass.values()) {
+            boolean stream = type == EndpointClass.STREAM;
+            limiters.put(type, new Limiter(type, stream ? streamLimit : initialLimit, !stream));
+        }
+        this.limiters = limiters;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        Limiter limiter = limiters.get(classify(request));
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many " + limiter.type + " requests in flight");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Release(limiter, start, response));
+                async = true;
+            }
+        } finally {
+            if (!async)
+                limiter.release(System.nanoTime() - start, response.getStatus());
+        }
+    }
+
+    public List<LimiterStats> stats() {
+        List<LimiterStats> stats = new ArrayList<>();
+        for (Limiter limiter : limiters.values()) {
+            stats.add(limiter.stats());
+        }
+        return stats;
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.equals(SHIPS) && !path.startsWith(SHIPS + "/"))
+            return null;
+        //progress and history of background jobs
+        if (path.equals(SHIPS + "/rerate") || (path.equals(SHIPS + "/import") && HttpMethod.GET.matches(request.getMethod())))
+            return null;
+        if (path.equals(SHIPS + "/export") || path.equals(SHIPS + "/import"))
+            return EndpointClass.STREAM;
+
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod()))
+            return EndpointClass.WRITE;
+        return path.equals(SHIPS + "/count") ? EndpointClass.COUNT : EndpointClass.LIST;
+    }
+
+    private static class Release implements AsyncListener {
+
+        private final Limiter limiter;
+        private final long start;
+        private final HttpServletResponse response;
+
+        Release(Limiter limiter, long start, HttpServletResponse response) {
+            this.limiter = limiter;
+            this.start = start;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(System.nanoTime() - start, response.getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private class Limiter {
+
+        private final EndpointClass type;
+        private final boolean adaptive;
+
+        //guarded by this
+        private double limit;
+        private int inFlight;
+        private int maxInFlight;
+        private long admitted;
+        private long rejected;
+        private long completed;
+        private long latencyNanos;
+
+        Limiter(EndpointClass type, int limit, boolean adaptive) {
+            this.type = type;
+            this.limit = limit;
+            this.adaptive = adaptive;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (inFlight >= (int) limit) {
+                rejected++;
+                return false;
+            }
+            inFlight++;
+            admitted++;
+            maxInFlight = Math.max(maxInFlight, inFlight);
+            return true;
+        }
+
+        synchronized void release(long nanos, int status) {
+            completed++;
+            latencyNanos += nanos;
+
+            if (adaptive) {
+                if (nanos > targetLatencyNanos || status == HttpStatus.SERVICE_UNAVAILABLE.value())
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                else if (inFlight * 2 >= limit)
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            inFlight--;
+        }
+
+        synchronized LimiterStats stats() {
+            LimiterStats stats = new LimiterStats();
+            stats.endpointClass = type;
+            stats.limit = (int) limit;
+            stats.inFlight = inFlight;
+            stats.maxInFlight = maxInFlight;
+            stats.admitted = admitted;
+            stats.rejected = rejected;
+            stats.avgLatencyMicros = completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(latencyNanos / completed);
+            return stats;
+        }
+    }
+
+    public static class LimiterStats {
+        private EndpointClass endpointClass;
+        private int limit;
+        private int inFlight;
+        private int maxInFlight;
+        private long admitted;
+        private long rejected;
+        private long avgLatencyMicros;
+
+        public EndpointClass getEndpointClass() {
+            return endpointClass;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public long getAdmitted() {
+            return admitted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getAvgLatencyMicros() {
+            return avgLatencyMicros;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.space.controller;
+
+import com.space.metrics.HandlerLatencyMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Starts a {@link RequestTiming} when a handler is called and records it once the
+ * response is complete: after the handler returns, or for a DeferredResult after the
+ * async dispatch that writes its result.
+ */
+@Component
+public class LatencyInterceptor implements AsyncHandlerInterceptor {
+
+    private HandlerLatencyMetrics metrics;
+
+    @Autowired
+    public void setMetrics(HandlerLatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST && handler instanceof HandlerMethod)
+            request.setAttribute(RequestTiming.ATTRIBUTE, new RequestTiming(((HandlerMethod) handler).getMethod().getName()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTiming timing = (RequestTiming) request.getAttribute(RequestTiming.ATTRIBUTE);
+        if (timing == null || request.isAsyncStarted())
+            return;
+        request.removeAttribute(RequestTiming.ATTRIBUTE);
+
+        long total = timing.getTotalNanos();
+        metrics.record(timing.getHandler(), total, timing.getServiceNanos(total), timing.getDbNanos(), timing.getSerializationNanos());
+    }
+}
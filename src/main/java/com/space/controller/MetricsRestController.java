@@ -0,0 +1,125 @@
+package com.space.controller;
+
+import com.space.metrics.EntityCacheMetrics;
+import com.space.metrics.HandlerLatencyMetrics;
+import com.space.metrics.HibernateMetrics;
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.SlowQueryLog;
+import com.space.service.ShipQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/rest/metrics")
+public class MetricsRestController {
+
+    private PoolMetrics poolMetrics;
+    private ShipQueryCache queryCache;
+    private EntityCacheMetrics entityCacheMetrics;
+    private ShipRequestExecutor requestExecutor;
+    private AdmissionFilter admissionFilter;
+    private HandlerLatencyMetrics latencyMetrics;
+    private HibernateMetrics hibernateMetrics;
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    public void setPoolMetrics(PoolMetrics poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
+    @Autowired
+    public void setQueryCache(ShipQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    @Autowired
+    public void setEntityCacheMetrics(EntityCacheMetrics entityCacheMetrics) {
+        this.entityCacheMetrics = entityCacheMetrics;
+    }
+
+    @Autowired
+    public void setRequestExecutor(ShipRequestExecutor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+    }
+
+    @Autowired
+    public void setAdmissionFilter(AdmissionFilter admissionFilter) {
+        this.admissionFilter = admissionFilter;
+    }
+
+    @Autowired
+    public void setLatencyMetrics(HandlerLatencyMetrics latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @Autowired
+    public void setHibernateMetrics(HibernateMetrics hibernateMetrics) {
+        this.hibernateMetrics = hibernateMetrics;
+    }
+
+    @Autowired
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    //latency histograms for a Prometheus scrape, written as text past the JSON converter
+    @GetMapping(value = "")
+    public void getLatencyMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType(HandlerLatencyMetrics.CONTENT_TYPE);
+        Writer writer = response.getWriter();
+        latencyMetrics.writeTo(writer);
+        writer.flush();
+    }
+
+    @GetMapping(value = "/pool")
+    @ResponseStatus(HttpStatus.OK)
+    public PoolMetrics.PoolSnapshot getPoolMetrics() {
+        return poolMetrics.snapshot();
+    }
+
+    @GetMapping(value = "/cache")
+    @ResponseStatus(HttpStatus.OK)
+    public ShipQueryCache.CacheStats getCacheStats() {
+        return queryCache.stats();
+    }
+
+    @GetMapping(value = "/entity-cache")
+    @ResponseStatus(HttpStatus.OK)
+    public List<EntityCacheMetrics.RegionSnapshot> getEntityCacheStats() {
+        return entityCacheMetrics.snapshot();
+    }
+
+    @GetMapping(value = "/executor")
+    @ResponseStatus(HttpStatus.OK)
+    public ShipRequestExecutor.ExecutorStats getExecutorStats() {
+        return requestExecutor.stats();
+    }
+
+    @GetMapping(value = "/admission")
+    @ResponseStatus(HttpStatus.OK)
+    public List<AdmissionFilter.LimiterStats> getAdmissionStats() {
+        return admissionFilter.stats();
+    }
+
+    @GetMapping(value = "/hibernate")
+    @ResponseStatus(HttpStatus.OK)
+    public HibernateMetrics.StatisticsSnapshot getHibernateStats() {
+        return hibernateMetrics.snapshot();
+    }
+
+    @GetMapping(value = "/slow-queries")
+    @ResponseStatus(HttpStatus.OK)
+    public List<SlowQueryLog.SlowQuery> getSlowQueries(@RequestParam(value = "minDurationMs", required = false, defaultValue = "0") Long minDurationMs) {
+        return slowQueryLog.entries(minDurationMs);
+    }
+}
@@ -0,0 +1,65 @@
+package com.space.controller;
+
+import com.space.metrics.JdbcTimeListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Where the time of one ship request went. Kept as a request attribute from the handler
+ * call to its completion, which for DeferredResult handlers spans the container thread,
+ * an executor thread and the async dispatch.
+ */
+class RequestTiming {
+
+    static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private final String handler;
+    private final long start = System.nanoTime();
+    private final long dbStart = JdbcTimeListener.threadNanos();
+
+    //set on the executor thread before the result is handed over
+    private volatile boolean executed;
+    private volatile long serviceNanos;
+    private volatile long dbNanos;
+    private volatile long serializationNanos;
+
+    RequestTiming(String handler) {
+        this.handler = handler;
+    }
+
+    static RequestTiming current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (RequestTiming) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    void executed(long taskNanos, long taskDbNanos) {
+        dbNanos = taskDbNanos;
+        serviceNanos = taskNanos - taskDbNanos;
+        executed = true;
+    }
+
+    void serialized(long nanos) {
+        serializationNanos += nanos;
+    }
+
+    String getHandler() {
+        return handler;
+    }
+
+    long getTotalNanos() {
+        return System.nanoTime() - start;
+    }
+
+    // a handler that ran on the container thread did its statements there too
+    long getDbNanos() {
+        return executed ? dbNanos : JdbcTimeListener.threadNanos() - dbStart;
+    }
+
+    long getServiceNanos(long totalNanos) {
+        return executed ? serviceNanos : totalNanos - getDbNanos() - serializationNanos;
+    }
+
+    long getSerializationNanos() {
+        return serializationNanos;
+    }
+}
@@ -0,0 +1,264 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.BadRequestException;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.service.ShipRowReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public enum ShipFileFormat {
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        void writeHeader(Writer writer) {
+        }
+
+        @Override
+        void writeRow(Writer writer, ObjectWriter json, ShipView ship) throws IOException {
+            writer.write(json.writeValueAsString(ship));
+            writer.write('\n');
+        }
+
+        @Override
+        ShipRowReader reader(BufferedReader reader, ObjectReader json) {
+            return new LineReader(reader) {
+                @Override
+                public Ship next() throws IOException {
+                    String line;
+                    do {
+                        line = readLine();
+                        if (line == null)
+                            return null;
+                    } while (line.trim().isEmpty());
+
+                    try {
+                        return json.forType(Ship.class).readValue(line);
+                    } catch (JsonProcessingException e) {
+                        throw new BadRequestException("Malformed JSON: " + e.getOriginalMessage());
+                    }
+                }
+            };
+        }
+    },
+    CSV("text/csv", "csv") {
+        @Override
+        void writeHeader(Writer writer) throws IOException {
+            writer.write("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating\r\n");
+        }
+
+        @Override
+        void writeRow(Writer writer, ObjectWriter json, ShipView ship) throws IOException {
+            writer.write(Long.toString(ship.getId()));
+            writer.write(',');
+            writeText(writer, ship.getName());
+            writer.write(',');
+            writeText(writer, ship.getPlanet());
+            writer.write(',');
+            writeValue(writer, ship.getShipType());
+            writer.write(',');
+            if (ship.hasProdDate())
+                writer.write(Long.toString(ship.getProdDate()));
+            writer.write(',');
+            if (ship.hasUsed())
+                writer.write(Boolean.toString(ship.isUsed()));
+            writer.write(',');
+            if (ship.hasSpeed())
+                writer.write(Double.toString(ship.getSpeed()));
+            writer.write(',');
+            if (ship.hasCrewSize())
+                writer.write(Integer.toString(ship.getCrewSize()));
+            writer.write(',');
+            if (ship.hasRating())
+                writer.write(Double.toString(ship.getRating()));
+            writer.write("\r\n");
+        }
+
+        @Override
+        ShipRowReader reader(BufferedReader reader, ObjectReader json) {
+            return new LineReader(reader) {
+
+                private Map<String, Integer> columns;
+
+                @Override
+                public Ship next() throws IOException {
+                    if (columns == null)
+                        columns = readHeader();
+
+                    List<String> values;
+                    do {
+                        values = readRecord();
+                        if (values == null)
+                            return null;
+                    } while (values.size() == 1 && values.get(0).isEmpty());
+
+                    try {
+                        Ship ship = new Ship();
+                        ship.setName(value(values, "name"));
+                        ship.setPlanet(value(values, "planet"));
+                        String shipType = value(values, "shipType");
+                        ship.setShipType(shipType == null ? null : ShipType.valueOf(shipType));
+                        String prodDate = value(values, "prodDate");
+                        ship.setProdDate(prodDate == null ? null : new Date(Long.parseLong(prodDate)));
+                        String used = value(values, "isUsed");
+                        ship.setUsed(used == null ? null : parseBoolean(used));
+                        String speed = value(values, "speed");
+                        ship.setSpeed(speed == null ? null : Double.valueOf(speed));
+                        String crewSize = value(values, "crewSize");
+                        ship.setCrewSize(crewSize == null ? null : Integer.valueOf(crewSize));
+                        return ship;
+                    } catch (IllegalArgumentException e) {
+                        throw new BadRequestException("Malformed CSV value: " + e.getMessage());
+                    }
+                }
+
+                private Map<String, Integer> readHeader() throws IOException {
+                    List<String> header = readRecord();
+                    if (header == null)
+                        throw new IOException("CSV header is missing");
+
+                    Map<String, Integer> columns = new HashMap<>();
+                    for (int i = 0; i < header.size(); i++) {
+                        columns.put(header.get(i).trim(), i);
+                    }
+                    return columns;
+                }
+
+                private String value(List<String> values, String column) {
+                    Integer index = columns.get(column);
+                    if (index == null || index >= values.size() || values.get(index).isEmpty())
+                        return null;
+
+                    return values.get(index);
+                }
+
+                // RFC 4180, a quoted value may span lines
+                private List<String> readRecord() throws IOException {
+                    String line = readLine();
+                    if (line == null)
+                        return null;
+
+                    List<String> values = new ArrayList<>();
+                    StringBuilder value = new StringBuilder();
+                    boolean quoted = false;
+                    for (int i = 0; ; i++) {
+                        if (i == line.length()) {
+                            if (!quoted)
+                                break;
+                            line = readLine();
+                            if (line == null)
+                                throw new BadRequestException("Unterminated quoted CSV value");
+                            value.append('\n');
+                            i = -1;
+                            continue;
+                        }
+
+                        char c = line.charAt(i);
+                        if (quoted) {
+                            if (c != '"') {
+                                value.append(c);
+                            } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                                value.append('"');
+                                i++;
+                            } else {
+                                quoted = false;
+                            }
+                        } else if (c == '"') {
+                            quoted = true;
+                        } else if (c == ',') {
+                            values.add(value.toString());
+                            value.setLength(0);
+                        } else {
+                            value.append(c);
+                        }
+                    }
+                    values.add(value.toString());
+                    return values;
+                }
+            };
+        }
+    };
+
+    private String contentType;
+    private String extension;
+
+    ShipFileFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract void writeHeader(Writer writer) throws IOException;
+
+    abstract void writeRow(Writer writer, ObjectWriter json, ShipView ship) throws IOException;
+
+    abstract ShipRowReader reader(BufferedReader reader, ObjectReader json);
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value != null)
+            writer.write(value.toString());
+    }
+
+    // Boolean.valueOf reads anything but "true" as false
+    private static Boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true"))
+            return true;
+        if (value.equalsIgnoreCase("false"))
+            return false;
+        throw new IllegalArgumentException("For input string: \"" + value + "\"");
+    }
+
+    // RFC 4180 quoting, only when the value needs it
+    private static void writeText(Writer writer, String value) throws IOException {
+        if (value == null)
+            return;
+
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private abstract static class LineReader implements ShipRowReader {
+
+        private final BufferedReader reader;
+        private long line;
+
+        LineReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        String readLine() throws IOException {
+            String text = reader.readLine();
+            if (text != null)
+                line++;
+            return text;
+        }
+
+        @Override
+        public long getLine() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.space.model.Ship;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Writes a {@link Ship} the way the field-visibility ObjectMapper does, in declaration
+ * order with nulls and dates as epoch millis, but without the reflective bean serializer.
+ * Field names are encoded once and copied into the generator buffer, and speeds and
+ * ratings, which are rounded to hundredths, are formatted without Double.toString.
+ */
+public class ShipJsonSerializer extends StdSerializer<Ship> {
+
+    static final SerializedString ID = new SerializedString("id");
+    static final SerializedString NAME = new SerializedString("name");
+    static final SerializedString PLANET = new SerializedString("planet");
+    static final SerializedString SHIP_TYPE = new SerializedString("shipType");
+    static final SerializedString PROD_DATE = new SerializedString("prodDate");
+    static final SerializedString IS_USED = new SerializedString("isUsed");
+    static final SerializedString SPEED = new SerializedString("speed");
+    static final SerializedString CREW_SIZE = new SerializedString("crewSize");
+    static final SerializedString RATING = new SerializedString("rating");
+
+    //below it every hundredth is printed by Double.toString as plain digits, checked in the test
+    static final long MAX_HUNDREDTHS = 10_000_000;
+
+    private static final ThreadLocal<char[]> DIGITS = ThreadLocal.withInitial(() -> new char[16]);
+
+    public ShipJsonSerializer() {
+        super(Ship.class);
+    }
+
+    @Override
+    public void serialize(Ship ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(ship);
+
+        gen.writeFieldName(ID);
+        if (ship.getId() == null)
+            gen.writeNull();
+        else
+            gen.writeNumber(ship.getId());
+
+        gen.writeFieldName(NAME);
+        gen.writeString(ship.getName());
+
+        gen.writeFieldName(PLANET);
+        gen.writeString(ship.getPlanet());
+
+        gen.writeFieldName(SHIP_TYPE);
+        gen.writeString(ship.getShipType() == null ? null : ship.getShipType().name());
+
+        gen.writeFieldName(PROD_DATE);
+        Date prodDate = ship.getProdDate();
+        if (prodDate == null)
+            gen.writeNull();
+        else
+            gen.writeNumber(prodDate.getTime());
+
+        gen.writeFieldName(IS_USED);
+        if (ship.getUsed() == null)
+            gen.writeNull();
+        else
+            gen.writeBoolean(ship.getUsed());
+
+        gen.writeFieldName(SPEED);
+        if (ship.getSpeed() == null)
+            gen.writeNull();
+        else
+            writeDecimal(gen, ship.getSpeed());
+
+        gen.writeFieldName(CREW_SIZE);
+        if (ship.getCrewSize() == null)
+            gen.writeNull();
+        else
+            gen.writeNumber(ship.getCrewSize());
+
+        gen.writeFieldName(RATING);
+        if (ship.getRating() == null)
+            gen.writeNull();
+        else
+            writeDecimal(gen, ship.getRating());
+
+        gen.writeEndObject();
+    }
+
+    static void writeDecimal(JsonGenerator gen, double value) throws IOException {
+        char[] digits = DIGITS.get();
+        int length = formatHundredths(value, digits);
+        if (length < 0)
+            gen.writeNumber(value);
+        else
+            gen.writeRawValue(digits, 0, length);
+    }
+
+    // the same digits as Double.toString for a non-negative whole number of hundredths, -1 for anything else
+    static int formatHundredths(double value, char[] digits) {
+        //the sign bit check also turns away -0.0
+        if (Double.doubleToRawLongBits(value) < 0 || !(value < MAX_HUNDREDTHS / 100))
+            return -1;
+        long hundredths = Math.round(value * 100);
+        if (hundredths / 100.0 != value)
+            return -1;
+
+        long whole = hundredths / 100;
+        int fraction = (int) (hundredths % 100);
+
+        int length = 0;
+        long divisor = 1;
+        while (divisor * 10 <= whole)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            digits[length++] = (char) ('0' + whole / divisor % 10);
+
+        digits[length++] = '.';
+        digits[length++] = (char) ('0' + fraction / 10);
+        if (fraction % 10 != 0)
+            digits[length++] = (char) ('0' + fraction % 10);
+        return length;
+    }
+}
@@ -0,0 +1,25 @@
+package com.space.controller;
+
+import com.space.model.ShipView;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+public class ShipPage {
+
+    private List<ShipView> ships;
+    private Long count;
+
+    public ShipPage(Page<ShipView> page) {
+        this.ships = page.getContent();
+        this.count = page.getTotalElements();
+    }
+
+    public List<ShipView> getShips() {
+        return ships;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+}
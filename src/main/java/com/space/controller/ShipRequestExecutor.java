@@ -0,0 +1,297 @@
+package com.space.controller;
+
+import com.space.GatewayTimeoutException;
+import com.space.ServiceUnavailableException;
+import com.space.metrics.JdbcTimeListener;
+import com.space.repository.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the database work of REST requests off the container threads. There is one
+ * thread per pooled connection, so queries wait here rather than inside the pools, and
+ * at most queueCapacity requests wait; beyond that requests are turned away with 503.
+ * When reads go to replicas, writes have threads of their own, one per connection of
+ * the primary, and reads one per connection of the replicas. A request still without a result
+ * after timeoutMs is answered with 503 if it has not started yet, and dropped from the
+ * queue, so it is safe to retry. One that has started is left to finish and answered
+ * with 504: a write may still commit after the client has been answered.
+ */
+@Component
+public class ShipRequestExecutor {
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int EXPIRED = 2;
+
+    private DataSource dataSource;
+    private int defaultThreads;
+    private int threads;
+    private int writeThreads;
+    private int queueCapacity;
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+    //the same as executor unless reads go to replicas
+    private ThreadPoolExecutor writeExecutor;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    //used when the DataSource is not a Hikari pool
+    @Value("${db.pool.maximumPoolSize:10}")
+    public void setDefaultThreads(int defaultThreads) {
+        this.defaultThreads = defaultThreads;
+    }
+
+    @Value("${cosmoport.async.queueCapacity:100}")
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Value("${cosmoport.async.timeoutMs:10000}")
+    public void setTimeoutMs(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        writeThreads = maximumPoolSize(dataSource);
+        writeExecutor = newExecutor("ship-write-", writeThreads);
+
+        List<DataSource> replicas = dataSource instanceof ReadWriteRoutingDataSource
+                ? ((ReadWriteRoutingDataSource) dataSource).getReplicas() : Collections.emptyList();
+        if (replicas.isEmpty()) {
+            threads = writeThreads;
+            executor = writeExecutor;
+        } else {
+            threads = 0;
+            for (DataSource replica : replicas) {
+                threads += maximumPoolSize(replica);
+            }
+            executor = newExecutor("ship-request-", threads);
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(String name, int threads) {
+        AtomicInteger number = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+            Thread thread = new Thread(task, name + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        writeExecutor.shutdownNow();
+    }
+
+    public <T> DeferredResult<T> submit(Callable<T> task) {
+        return submit(executor, task);
+    }
+
+    public <T> DeferredResult<T> submitWrite(Callable<T> task) {
+        return submit(writeExecutor, task);
+    }
+
+    private <T> DeferredResult<T> submit(ThreadPoolExecutor executor, Callable<T> task) {
+        DeferredResult<T> result = new DeferredResult<>(timeoutMs);
+        long queuedAt = System.nanoTime();
+        RequestTiming timing = RequestTiming.current();
+        boolean readYourWrites = readYourWritesRequested();
+        //decides between the thread and the timeout whether the task runs
+        AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                //answered with 503 while it was queued
+                if (!state.compareAndSet(QUEUED, RUNNING))
+                    return;
+
+                long waited = System.nanoTime() - queuedAt;
+                started.increment();
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+                //the timing is complete before the result dispatches the request
+                long dbStart = JdbcTimeListener.threadNanos();
+                long start = System.nanoTime();
+                T value = null;
+                Throwable error = null;
+                boolean previous = ReadWriteRoutingDataSource.setReadYourWrites(readYourWrites);
+                try {
+                    value = task.call();
+                } catch (Throwable e) {
+                    error = e;
+                } finally {
+                    ReadWriteRoutingDataSource.setReadYourWrites(previous);
+                }
+                if (timing != null)
+                    timing.executed(System.nanoTime() - start, JdbcTimeListener.threadNanos() - dbStart);
+
+                if (error == null) {
+                    result.setResult(value);
+                } else {
+                    failed.increment();
+                    result.setErrorResult(error);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many requests waiting for the database", e);
+        }
+        maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+        //a running query is left to finish, interrupting it would close its connection
+        result.onTimeout(() -> {
+            timedOut.increment();
+            if (state.compareAndSet(QUEUED, EXPIRED)) {
+                future.cancel(false);
+                //frees its place in the queue for the requests behind it
+                executor.remove((Runnable) future);
+                result.setErrorResult(new ServiceUnavailableException("Request timed out before it started"));
+            } else {
+                result.setErrorResult(new GatewayTimeoutException("Request timed out while running, it may still complete"));
+            }
+        });
+        return result;
+    }
+
+    // writes take connections of the primary only
+    private int maximumPoolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource)
+            return ((HikariDataSource) dataSource).getMaximumPoolSize();
+        if (dataSource instanceof ReadWriteRoutingDataSource)
+            return maximumPoolSize(((ReadWriteRoutingDataSource) dataSource).getPrimary());
+        return defaultThreads;
+    }
+
+    private static boolean readYourWritesRequested() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes && Boolean.parseBoolean(
+                ((ServletRequestAttributes) attributes).getRequest().getHeader(ShipRestController.READ_YOUR_WRITES_HEADER));
+    }
+
+    public ExecutorStats stats() {
+        ExecutorStats stats = new ExecutorStats();
+        boolean separate = writeExecutor != executor;
+        stats.threads = separate ? threads + writeThreads : threads;
+        stats.writeThreads = writeThreads;
+        stats.active = executor.getActiveCount() + (separate ? writeExecutor.getActiveCount() : 0);
+        stats.queued = executor.getQueue().size() + (separate ? writeExecutor.getQueue().size() : 0);
+        stats.maxQueued = maxQueued.get();
+        stats.queueCapacity = separate ? queueCapacity * 2 : queueCapacity;
+        stats.timeoutMs = timeoutMs;
+
+        long count = started.sum();
+        stats.completed = executor.getCompletedTaskCount() + (separate ? writeExecutor.getCompletedTaskCount() : 0);
+        stats.failed = failed.sum();
+        stats.rejected = rejected.sum();
+        stats.timedOut = timedOut.sum();
+        stats.avgQueueWaitMicros = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / count);
+        stats.maxQueueWaitMicros = TimeUnit.NANOSECONDS.toMicros(maxQueueWaitNanos.get());
+        return stats;
+    }
+
+    public static class ExecutorStats {
+        private int threads;
+        private int writeThreads;
+        private int active;
+        private int queued;
+        private int maxQueued;
+        private int queueCapacity;
+        private long timeoutMs;
+        private long completed;
+        private long failed;
+        private long rejected;
+        private long timedOut;
+        private long avgQueueWaitMicros;
+        private long maxQueueWaitMicros;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getWriteThreads() {
+            return writeThreads;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public long getCompleted() {
+            return completed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTimedOut() {
+            return timedOut;
+        }
+
+        public long getAvgQueueWaitMicros() {
+            return avgQueueWaitMicros;
+        }
+
+        public long getMaxQueueWaitMicros() {
+            return maxQueueWaitMicros;
+        }
+    }
+}
@@ -1,126 +1,301 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.BadRequestException;
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.model.ShipView;
+import com.space.repository.ReadWriteRoutingDataSource;
+import com.space.service.ShipBatchResult;
+import com.space.service.ShipFilter;
+import com.space.service.ShipImport;
+import com.space.service.ShipImporter;
+import com.space.service.ShipRerate;
+import com.space.service.ShipRerater;
 import com.space.service.ShipService;
+import com.space.service.ShipSlice;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping(value = "/rest")
 public class ShipRestController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    //read from the primary shortly after a write, see ReadWriteRoutingDataSource
+    static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes";
+
     private ShipService service;
+    private ShipImporter importer;
+    private ShipRerater rerater;
+    private ShipRequestExecutor executor;
+    private ObjectMapper objectMapper;
+    private boolean listETags;
 
     @Autowired
     public void setService(ShipService service) {
         this.service = service;
     }
 
+    @Autowired
+    public void setImporter(ShipImporter importer) {
+        this.importer = importer;
+    }
+
+    @Autowired
+    public void setRerater(ShipRerater rerater) {
+        this.rerater = rerater;
+    }
+
+    @Autowired
+    public void setExecutor(ShipRequestExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Autowired
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Value("${cosmoport.listETag.enabled:false}")
+    public void setListETags(boolean listETags) {
+        this.listETags = listETags;
+    }
+
+    //conditional reads leave out @ResponseStatus, it would overwrite the 304 set by checkNotModified
     @GetMapping(value = "/ships")
+    public DeferredResult<ResponseEntity<List<ShipView>>> getAllShips(ShipFilter filter,
+                                                                      @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                                      @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                                      @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                                                      WebRequest request) {
+
+        if (listNotModified(request))
+            return null;
+
+        return executor.submit(() -> {
+            //keyset mode: pageNumber is ignored, the next page is addressed by the returned cursor
+            if (cursor != null) {
+                ShipSlice slice = service.seekShips(service.filterBy(filter), order, cursor, pageSize);
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (slice.hasNext())
+                    response.header(NEXT_CURSOR_HEADER, slice.getNextCursor());
+
+                return response.body(slice.getShips());
+            }
+
+            return ResponseEntity.ok(service.findShips(filter, order, pageNumber, pageSize).getContent());
+        });
+    }
+
+    @GetMapping(value = "/ships/page")
+    public DeferredResult<ShipPage> getShipPage(ShipFilter filter,
+                                                @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                                                @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
+                                                @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize,
+                                                WebRequest request) {
+
+        if (listNotModified(request))
+            return null;
+
+        return executor.submit(() -> new ShipPage(service.findShips(filter, order, pageNumber, pageSize)));
+    }
+
+    //export and import stream the response and request bodies and stay on the container thread
+    @GetMapping(value = "/ships/export")
+    public void exportShips(ShipFilter filter,
+                            @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
+                            @RequestParam(value = "format", required = false, defaultValue = "NDJSON") ShipFileFormat format,
+                            @RequestHeader(value = READ_YOUR_WRITES_HEADER, required = false, defaultValue = "false") boolean readYourWrites,
+                            HttpServletResponse response) throws IOException {
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"ships." + format.getExtension() + "\"");
+
+        //rows go out as they are read, a slow client blocks the writer and with it the database cursor
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(ShipView.class);
+
+        format.writeHeader(writer);
+        boolean previous = ReadWriteRoutingDataSource.setReadYourWrites(readYourWrites);
+        try {
+            service.exportShips(filter, order, ship -> {
+                try {
+                    format.writeRow(writer, json, ship);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } finally {
+            ReadWriteRoutingDataSource.setReadYourWrites(previous);
+        }
+        writer.flush();
+    }
+
+    @PostMapping(value = "/ships/import")
     @ResponseStatus(HttpStatus.OK)
-    public List<Ship> getAllShips(@RequestParam(value = "name", required = false) String name,
-                                  @RequestParam(value = "planet", required = false) String planet,
-                                  @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                  @RequestParam(value = "after", required = false) Long after,
-                                  @RequestParam(value = "before", required = false) Long before,
-                                  @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                  @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                  @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                  @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                  @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                  @RequestParam(value = "minRating", required = false) Double minRating,
-                                  @RequestParam(value = "maxRating", required = false) Double maxRating,
-                                  @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
-                                  @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
-                                  @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize) {
-
-
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
-
-        return service.gelAllShips(
-                Specification.where(service.filterByName(name)
-                        .and(service.filterByPlanet(planet)))
-                        .and(service.filterByShipType(shipType))
-                        .and(service.filterByDate(after, before))
-                        .and(service.filterByUsage(isUsed))
-                        .and(service.filterBySpeed(minSpeed, maxSpeed))
-                        .and(service.filterByCrewSize(minCrewSize, maxCrewSize))
-                        .and(service.filterByRating(minRating, maxRating)), pageable)
-                .getContent();
+    @ResponseBody
+    public ShipImport importShips(@RequestParam(value = "format", required = false, defaultValue = "NDJSON") ShipFileFormat format,
+                                  HttpServletRequest request) throws IOException {
+
+        //read from the request stream as rows are imported rather than through @RequestBody
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+
+        return importer.importShips(format.name(), format.reader(reader, objectMapper.reader()));
     }
 
-    @RequestMapping(value = "/ships/count", method = RequestMethod.GET)
+    @GetMapping(value = "/ships/import")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ShipImport> getImports() {
+
+        return importer.recentImports();
+    }
+
+    @PostMapping(value = "/ships/rerate")
     @ResponseStatus(HttpStatus.OK)
-    public Integer getCount(@RequestParam(value = "name", required = false) String name,
-                            @RequestParam(value = "planet", required = false) String planet,
-                            @RequestParam(value = "shipType", required = false) ShipType shipType,
-                            @RequestParam(value = "after", required = false) Long after,
-                            @RequestParam(value = "before", required = false) Long before,
-                            @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                            @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                            @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                            @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                            @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                            @RequestParam(value = "minRating", required = false) Double minRating,
-                            @RequestParam(value = "maxRating", required = false) Double maxRating) {
-
-        return service.gelAllShips(
-                Specification.where(service.filterByName(name)
-                        .and(service.filterByPlanet(planet)))
-                        .and(service.filterByShipType(shipType))
-                        .and(service.filterByDate(after, before))
-                        .and(service.filterByUsage(isUsed))
-                        .and(service.filterBySpeed(minSpeed, maxSpeed))
-                        .and(service.filterByCrewSize(minCrewSize, maxCrewSize))
-                        .and(service.filterByRating(minRating, maxRating)))
-                .size();
+    public ShipRerate startRerate(@RequestParam(value = "fromId", required = false) Long fromId) {
+
+        return rerater.start(fromId);
+    }
+
+    @GetMapping(value = "/ships/rerate")
+    @ResponseStatus(HttpStatus.OK)
+    public ShipRerate getRerate() {
+
+        return rerater.current();
+    }
+
+    @DeleteMapping(value = "/ships/rerate")
+    @ResponseStatus(HttpStatus.OK)
+    public ShipRerate pauseRerate() {
+
+        return rerater.pause();
+    }
+
+    @RequestMapping(value = "/ships/count", method = RequestMethod.GET)
+    public DeferredResult<Long> getCount(ShipFilter filter, WebRequest request) {
+
+        if (listNotModified(request))
+            return null;
+
+        return executor.submit(() -> service.countShips(filter));
     }
 
     @PostMapping(value = "/ships")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public Ship addShip(@RequestBody Ship ship) {
+    public DeferredResult<Ship> addShip(@RequestBody Ship ship) {
 
-        return service.createShip(ship);
+        return executor.submitWrite(() -> service.createShip(ship));
 
     }
 
-    @GetMapping(value = "/ships/{id}")
+    @PostMapping(value = "/ships/batch")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public DeferredResult<ShipBatchResult> addShips(@RequestBody List<Ship> ships) {
+
+        return executor.submitWrite(() -> service.createShips(ships));
+    }
+
+    @PostMapping(value = "/ships/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public DeferredResult<Long> editShips(ShipFilter filter, @RequestBody Ship ship) {
+
+        return executor.submitWrite(() -> service.updateShips(filter, ship));
+    }
+
+    @DeleteMapping(value = "/ships/bulk")
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public Ship getShip(@PathVariable(value = "id") String id) {
+    public DeferredResult<Long> deleteShips(ShipFilter filter) {
+
+        return executor.submitWrite(() -> service.deleteShips(filter));
+    }
+
+    //the ETag is known once the ship is loaded, a matching If-None-Match is answered with 304 on the way out
+    @GetMapping(value = "/ships/{id}")
+    @ResponseBody
+    public DeferredResult<ResponseEntity<Ship>> getShip(@PathVariable(value = "id") String id) {
 
         Long longId = service.checkAndParseId(id);
 
-        return service.getShip(longId);
+        return executor.submit(() -> {
+            Ship ship = service.getShip(longId);
+            return ResponseEntity.ok().eTag(toETag(ship.getVersion())).body(ship);
+        });
     }
 
     @PostMapping(value = "/ships/{id}")
-    @ResponseStatus(HttpStatus.OK)
     @ResponseBody
-    public Ship editShip(@PathVariable(value = "id") String id, @RequestBody Ship ship) {
+    public DeferredResult<ResponseEntity<Ship>> editShip(@PathVariable(value = "id") String id, @RequestBody Ship ship,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
         Long longId = service.checkAndParseId(id);
 
-        return service.editShip(longId, ship);
+        //without If-Match the edit applies to whatever version is current
+        Long expectedVersion = ifMatch == null || ifMatch.equals("*") ? null : fromETag(ifMatch);
+
+        return executor.submitWrite(() -> {
+            Ship editedShip = service.editShip(longId, ship, expectedVersion);
+            return ResponseEntity.ok().eTag(toETag(editedShip.getVersion())).body(editedShip);
+        });
     }
 
     @DeleteMapping(value = "/ships/{id}")
     @ResponseStatus(HttpStatus.OK)
 
-    public void deleteShip(@PathVariable(value = "id") String id) {
+    public DeferredResult<Void> deleteShip(@PathVariable(value = "id") String id) {
 
         Long longId = service.checkAndParseId(id);
 
-        service.deleteById(longId);
+        return executor.submitWrite(() -> {
+            service.deleteById(longId);
+            return null;
+        });
+    }
+
+    //the table version only counts writes published by this process, other writers never change it
+    private boolean listNotModified(WebRequest request) {
+        return listETags && request.checkNotModified(toETag(service.getTableVersion()));
+    }
+
+    private static String toETag(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    private static Long fromETag(String etag) {
+        String value = etag.trim();
+        if (value.startsWith("W/"))
+            value = value.substring(2);
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"')
+            throw new BadRequestException("Invalid If-Match header");
 
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header", e);
+        }
     }
 }
@@ -0,0 +1,77 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.space.model.ShipView;
+
+import java.io.IOException;
+
+import static com.space.controller.ShipJsonSerializer.CREW_SIZE;
+import static com.space.controller.ShipJsonSerializer.ID;
+import static com.space.controller.ShipJsonSerializer.IS_USED;
+import static com.space.controller.ShipJsonSerializer.NAME;
+import static com.space.controller.ShipJsonSerializer.PLANET;
+import static com.space.controller.ShipJsonSerializer.PROD_DATE;
+import static com.space.controller.ShipJsonSerializer.RATING;
+import static com.space.controller.ShipJsonSerializer.SHIP_TYPE;
+import static com.space.controller.ShipJsonSerializer.SPEED;
+
+/**
+ * Writes a {@link ShipView} exactly as {@link ShipJsonSerializer} writes the same ship.
+ */
+public class ShipViewJsonSerializer extends StdSerializer<ShipView> {
+
+    public ShipViewJsonSerializer() {
+        super(ShipView.class);
+    }
+
+    @Override
+    public void serialize(ShipView ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(ship);
+
+        gen.writeFieldName(ID);
+        gen.writeNumber(ship.getId());
+
+        gen.writeFieldName(NAME);
+        gen.writeString(ship.getName());
+
+        gen.writeFieldName(PLANET);
+        gen.writeString(ship.getPlanet());
+
+        gen.writeFieldName(SHIP_TYPE);
+        gen.writeString(ship.getShipType() == null ? null : ship.getShipType().name());
+
+        gen.writeFieldName(PROD_DATE);
+        if (ship.hasProdDate())
+            gen.writeNumber(ship.getProdDate());
+        else
+            gen.writeNull();
+
+        gen.writeFieldName(IS_USED);
+        if (ship.hasUsed())
+            gen.writeBoolean(ship.isUsed());
+        else
+            gen.writeNull();
+
+        gen.writeFieldName(SPEED);
+        if (ship.hasSpeed())
+            ShipJsonSerializer.writeDecimal(gen, ship.getSpeed());
+        else
+            gen.writeNull();
+
+        gen.writeFieldName(CREW_SIZE);
+        if (ship.hasCrewSize())
+            gen.writeNumber(ship.getCrewSize());
+        else
+            gen.writeNull();
+
+        gen.writeFieldName(RATING);
+        if (ship.hasRating())
+            ShipJsonSerializer.writeDecimal(gen, ship.getRating());
+        else
+            gen.writeNull();
+
+        gen.writeEndObject();
+    }
+}
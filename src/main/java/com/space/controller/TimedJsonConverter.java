@@ -0,0 +1,33 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Adds the time spent writing a response body to the {@link RequestTiming} of the request.
+ */
+public class TimedJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJsonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            RequestTiming timing = RequestTiming.current();
+            if (timing != null)
+                timing.serialized(System.nanoTime() - start);
+        }
+    }
+}
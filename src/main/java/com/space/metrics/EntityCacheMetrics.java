@@ -0,0 +1,82 @@
+package com.space.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads hit and miss counts of the Hibernate second-level cache regions. Counts are
+ * only kept while hibernate.generate_statistics is on, which the cache turns on.
+ */
+public class EntityCacheMetrics {
+
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public List<RegionSnapshot> snapshot() {
+        List<RegionSnapshot> regions = new ArrayList<>();
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled())
+            return regions;
+
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region == null)
+                continue;
+
+            RegionSnapshot snapshot = new RegionSnapshot();
+            snapshot.regionName = regionName;
+            snapshot.hitCount = region.getHitCount();
+            snapshot.missCount = region.getMissCount();
+            snapshot.putCount = region.getPutCount();
+            long lookups = snapshot.hitCount + snapshot.missCount;
+            snapshot.hitRatio = lookups == 0 ? 0 : (double) snapshot.hitCount / lookups;
+            snapshot.elementCountInMemory = region.getElementCountInMemory();
+            regions.add(snapshot);
+        }
+        return regions;
+    }
+
+    public static class RegionSnapshot {
+        private String regionName;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private double hitRatio;
+        private long elementCountInMemory;
+
+        public String getRegionName() {
+            return regionName;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getPutCount() {
+            return putCount;
+        }
+
+        public double getHitRatio() {
+            return hitRatio;
+        }
+
+        // -1 when the cache provider does not report it
+        public long getElementCountInMemory() {
+            return elementCountInMemory;
+        }
+    }
+}
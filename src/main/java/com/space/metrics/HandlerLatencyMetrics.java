@@ -0,0 +1,72 @@
+package com.space.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms per REST handler, each request split into the time spent executing
+ * statements, the rest of the handler's work and writing the response body. Written out
+ * as Prometheus summaries in the text exposition format.
+ */
+public class HandlerLatencyMetrics {
+
+    public enum Phase {
+        TOTAL, SERVICE, DB, SERIALIZATION
+    }
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String NAME = "cosmoport_request_latency_seconds";
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private final ConcurrentMap<String, Map<Phase, LatencyHistogram>> handlers = new ConcurrentHashMap<>();
+
+    public void record(String handler, long totalNanos, long serviceNanos, long dbNanos, long serializationNanos) {
+        Map<Phase, LatencyHistogram> phases = handlers.get(handler);
+        if (phases == null)
+            phases = handlers.computeIfAbsent(handler, key -> newPhases());
+
+        phases.get(Phase.TOTAL).record(totalNanos);
+        phases.get(Phase.SERVICE).record(serviceNanos);
+        phases.get(Phase.DB).record(dbNanos);
+        phases.get(Phase.SERIALIZATION).record(serializationNanos);
+    }
+
+    public LatencyHistogram histogram(String handler, Phase phase) {
+        Map<Phase, LatencyHistogram> phases = handlers.get(handler);
+        return phases == null ? null : phases.get(phase);
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        writer.write("# HELP " + NAME + " Ship REST request latency by handler and phase.\n");
+        writer.write("# TYPE " + NAME + " summary\n");
+
+        for (Map.Entry<String, Map<Phase, LatencyHistogram>> handler : new TreeMap<>(handlers).entrySet()) {
+            for (Map.Entry<Phase, LatencyHistogram> phase : handler.getValue().entrySet()) {
+                String labels = "handler=\"" + handler.getKey() + "\",phase=\"" + phase.getKey().name().toLowerCase() + "\"";
+                LatencyHistogram histogram = phase.getValue();
+
+                for (double quantile : QUANTILES) {
+                    writer.write(NAME + "{" + labels + ",quantile=\"" + quantile + "\"} "
+                            + histogram.valueAtQuantile(quantile) / 1e6 + "\n");
+                }
+                writer.write(NAME + "_sum{" + labels + "} " + histogram.getSumNanos() / 1e9 + "\n");
+                writer.write(NAME + "_count{" + labels + "} " + histogram.getCount() + "\n");
+            }
+        }
+    }
+
+    private static Map<Phase, LatencyHistogram> newPhases() {
+        Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+        return phases;
+    }
+}
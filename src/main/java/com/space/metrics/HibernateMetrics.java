@@ -0,0 +1,189 @@
+package com.space.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads session, entity and query statistics of the Hibernate session factory. Queries
+ * are listed by their HQL, which for the Criteria API is the query Hibernate rendered
+ * from the Specification chain, the most expensive in total first.
+ */
+public class HibernateMetrics {
+
+    private static final int MAX_QUERIES = 20;
+
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public StatisticsSnapshot snapshot() {
+        Statistics statistics = sessionFactory.getStatistics();
+        StatisticsSnapshot snapshot = new StatisticsSnapshot();
+        snapshot.enabled = statistics.isStatisticsEnabled();
+        if (!snapshot.enabled)
+            return snapshot;
+
+        snapshot.sessionsOpened = statistics.getSessionOpenCount();
+        snapshot.sessionsClosed = statistics.getSessionCloseCount();
+        snapshot.transactions = statistics.getTransactionCount();
+        snapshot.connectionsObtained = statistics.getConnectCount();
+        snapshot.statementsPrepared = statistics.getPrepareStatementCount();
+        snapshot.flushes = statistics.getFlushCount();
+        snapshot.entityLoads = statistics.getEntityLoadCount();
+        snapshot.entityFetches = statistics.getEntityFetchCount();
+        snapshot.entityInserts = statistics.getEntityInsertCount();
+        snapshot.entityUpdates = statistics.getEntityUpdateCount();
+        snapshot.entityDeletes = statistics.getEntityDeleteCount();
+        snapshot.optimisticFailures = statistics.getOptimisticFailureCount();
+        snapshot.queryExecutions = statistics.getQueryExecutionCount();
+        snapshot.queryExecutionMaxTimeMs = statistics.getQueryExecutionMaxTime();
+        snapshot.slowestQuery = statistics.getQueryExecutionMaxTimeQueryString();
+
+        List<QuerySnapshot> queries = new ArrayList<>();
+        for (String query : statistics.getQueries()) {
+            QueryStatistics queryStatistics = statistics.getQueryStatistics(query);
+            QuerySnapshot querySnapshot = new QuerySnapshot();
+            querySnapshot.query = query;
+            querySnapshot.executions = queryStatistics.getExecutionCount();
+            querySnapshot.rows = queryStatistics.getExecutionRowCount();
+            querySnapshot.totalTimeMs = queryStatistics.getExecutionTotalTime();
+            querySnapshot.avgTimeMs = queryStatistics.getExecutionAvgTime();
+            querySnapshot.maxTimeMs = queryStatistics.getExecutionMaxTime();
+            queries.add(querySnapshot);
+        }
+        queries.sort(Comparator.comparingLong(QuerySnapshot::getTotalTimeMs).reversed());
+        snapshot.queries = queries.size() > MAX_QUERIES ? new ArrayList<>(queries.subList(0, MAX_QUERIES)) : queries;
+        return snapshot;
+    }
+
+    public static class StatisticsSnapshot {
+        private boolean enabled;
+        private long sessionsOpened;
+        private long sessionsClosed;
+        private long transactions;
+        private long connectionsObtained;
+        private long statementsPrepared;
+        private long flushes;
+        private long entityLoads;
+        private long entityFetches;
+        private long entityInserts;
+        private long entityUpdates;
+        private long entityDeletes;
+        private long optimisticFailures;
+        private long queryExecutions;
+        private long queryExecutionMaxTimeMs;
+        private String slowestQuery;
+        private List<QuerySnapshot> queries = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getSessionsOpened() {
+            return sessionsOpened;
+        }
+
+        public long getSessionsClosed() {
+            return sessionsClosed;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        public long getConnectionsObtained() {
+            return connectionsObtained;
+        }
+
+        public long getStatementsPrepared() {
+            return statementsPrepared;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getEntityLoads() {
+            return entityLoads;
+        }
+
+        public long getEntityFetches() {
+            return entityFetches;
+        }
+
+        public long getEntityInserts() {
+            return entityInserts;
+        }
+
+        public long getEntityUpdates() {
+            return entityUpdates;
+        }
+
+        public long getEntityDeletes() {
+            return entityDeletes;
+        }
+
+        public long getOptimisticFailures() {
+            return optimisticFailures;
+        }
+
+        public long getQueryExecutions() {
+            return queryExecutions;
+        }
+
+        public long getQueryExecutionMaxTimeMs() {
+            return queryExecutionMaxTimeMs;
+        }
+
+        public String getSlowestQuery() {
+            return slowestQuery;
+        }
+
+        public List<QuerySnapshot> getQueries() {
+            return queries;
+        }
+    }
+
+    public static class QuerySnapshot {
+        private String query;
+        private long executions;
+        private long rows;
+        private long totalTimeMs;
+        private long avgTimeMs;
+        private long maxTimeMs;
+
+        public String getQuery() {
+            return query;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getTotalTimeMs() {
+            return totalTimeMs;
+        }
+
+        public long getAvgTimeMs() {
+            return avgTimeMs;
+        }
+
+        public long getMaxTimeMs() {
+            return maxTimeMs;
+        }
+    }
+}
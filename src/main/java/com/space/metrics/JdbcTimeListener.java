@@ -0,0 +1,41 @@
+package com.space.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds up, per thread, the time Hibernate sessions spend executing JDBC statements and
+ * batches. Hibernate creates one listener per session through hibernate.session.events.auto,
+ * so the running total is kept in a thread local and callers read it before and after
+ * a piece of work. Statements issued on the raw connection are not seen.
+ */
+public class JdbcTimeListener extends BaseSessionEventListener {
+
+    private static final ThreadLocal<long[]> THREAD_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private long statementStart;
+    private long batchStart;
+
+    public static long threadNanos() {
+        return THREAD_NANOS.get()[0];
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        THREAD_NANOS.get()[0] += System.nanoTime() - statementStart;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        THREAD_NANOS.get()[0] += System.nanoTime() - batchStart;
+    }
+}
@@ -0,0 +1,142 @@
+package com.space.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects connection pool statistics from HikariCP. Pool sizes are read from the
+ * pool itself, acquisition wait times are accumulated on every borrow.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private volatile String poolName;
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireCount.increment();
+                acquireNanos.add(elapsedAcquiredNanos);
+                maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public PoolSnapshot snapshot() {
+        PoolSnapshot snapshot = new PoolSnapshot();
+        snapshot.poolName = poolName;
+
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            snapshot.active = stats.getActiveConnections();
+            snapshot.idle = stats.getIdleConnections();
+            snapshot.total = stats.getTotalConnections();
+            snapshot.pending = stats.getPendingThreads();
+            snapshot.maxSize = stats.getMaxConnections();
+            snapshot.minIdle = stats.getMinConnections();
+        }
+
+        long count = acquireCount.sum();
+        snapshot.acquireCount = count;
+        snapshot.acquireTimeouts = timeouts.sum();
+        snapshot.totalWaitMillis = TimeUnit.NANOSECONDS.toMillis(acquireNanos.sum());
+        snapshot.avgWaitMicros = count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count);
+        snapshot.maxWaitMicros = TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get());
+        snapshot.totalUsageMillis = usageMillis.sum();
+        return snapshot;
+    }
+
+    public static class PoolSnapshot {
+        private String poolName;
+        private int active;
+        private int idle;
+        private int total;
+        private int pending;
+        private int maxSize;
+        private int minIdle;
+        private long acquireCount;
+        private long acquireTimeouts;
+        private long totalWaitMillis;
+        private long avgWaitMicros;
+        private long maxWaitMicros;
+        private long totalUsageMillis;
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getPending() {
+            return pending;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public long getAcquireCount() {
+            return acquireCount;
+        }
+
+        public long getAcquireTimeouts() {
+            return acquireTimeouts;
+        }
+
+        public long getTotalWaitMillis() {
+            return totalWaitMillis;
+        }
+
+        public long getAvgWaitMicros() {
+            return avgWaitMicros;
+        }
+
+        public long getMaxWaitMicros() {
+            return maxWaitMicros;
+        }
+
+        public long getTotalUsageMillis() {
+            return totalUsageMillis;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.space.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times every statement executed on its connections and hands those slower than the
+ * threshold to a {@link SlowQueryLog}. It sits under the connection pool, so pooled
+ * connections are wrapped once, and result sets are only wrapped to count their rows
+ * when the statement that produced them was slow.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private static final Object NULL = new Object();
+
+    private final SlowQueryLog log;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryLog log) {
+        super(target);
+        this.log = log;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(), new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(Connection.class, obtainTargetDataSource().getConnection(username, password), new ConnectionHandler());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T wrap(Class<T> type, T target, Handler handler) {
+        handler.target = target;
+        return (T) Proxy.newProxyInstance(SlowQueryDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+
+        Object target;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            //statements are kept in hash maps by Hibernate, the proxy is only equal to itself
+            if (method.getName().equals("equals") && method.getParameterCount() == 1)
+                return proxy == args[0];
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0)
+                return System.identityHashCode(proxy);
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends Handler {
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (result instanceof CallableStatement)
+                return wrap(CallableStatement.class, (CallableStatement) result, new StatementHandler((String) args[0]));
+            if (result instanceof PreparedStatement)
+                return wrap(PreparedStatement.class, (PreparedStatement) result, new StatementHandler((String) args[0]));
+            if (result instanceof Statement)
+                return wrap(Statement.class, (Statement) result, new StatementHandler(null));
+            return result;
+        }
+    }
+
+    private class StatementHandler extends Handler {
+
+        private final String sql;
+        //bind values by index, kept until the statement runs and reduced to shapes only if it was slow
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private int batchSize;
+        private SlowQueryLog.SlowQuery slow;
+
+        StatementHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("execute")) {
+                slow = null;
+                long start = System.nanoTime();
+                Object result = call(method, args);
+                long nanos = System.nanoTime() - start;
+
+                if (nanos >= log.getThresholdNanos()) {
+                    String statementSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                    slow = log.add(statementSql, shapes(), batchSize, nanos);
+                    countRows(result);
+                    if (result instanceof ResultSet)
+                        result = wrap(ResultSet.class, (ResultSet) result, new ResultSetHandler(slow));
+                }
+                if (name.startsWith("executeBatch") || name.startsWith("executeLargeBatch"))
+                    batchSize = 0;
+                return result;
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && method.getDeclaringClass() != Statement.class) {
+                bind((Integer) args[0], name.equals("setNull") ? NULL : args[1]);
+            } else if (name.equals("clearParameters")) {
+                Arrays.fill(parameters, 0, parameterCount, null);
+                parameterCount = 0;
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+
+            Object result = call(method, args);
+            //a slow execute() leaves its rows to be fetched afterwards
+            if (slow != null) {
+                if (name.equals("getResultSet") && result != null)
+                    return wrap(ResultSet.class, (ResultSet) result, new ResultSetHandler(slow));
+                if (name.equals("getUpdateCount") || name.equals("getLargeUpdateCount"))
+                    countRows(result);
+            }
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (index > parameters.length)
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        private List<String> shapes() {
+            List<String> shapes = new ArrayList<>(parameterCount);
+            for (int i = 0; i < parameterCount; i++) {
+                shapes.add(shape(parameters[i]));
+            }
+            return shapes;
+        }
+
+        private void countRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                long count = ((Number) result).longValue();
+                if (count > 0)
+                    slow.addRows(count);
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    countBatchRows(count);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    countBatchRows(count);
+                }
+            }
+        }
+
+        //batches rewritten into one multi-row statement report SUCCESS_NO_INFO for every row
+        private void countBatchRows(long count) {
+            if (count == Statement.SUCCESS_NO_INFO)
+                slow.rowsUnknown();
+            else if (count > 0)
+                slow.addRows(count);
+        }
+    }
+
+    private static class ResultSetHandler extends Handler {
+
+        private final SlowQueryLog.SlowQuery slow;
+
+        ResultSetHandler(SlowQueryLog.SlowQuery slow) {
+            this.slow = slow;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result))
+                slow.addRows(1);
+            return result;
+        }
+    }
+
+    static String shape(Object value) {
+        if (value == null || value == NULL)
+            return "null";
+        if (value instanceof String)
+            return "String(" + ((String) value).length() + ")";
+        if (value instanceof byte[])
+            return "byte[" + ((byte[]) value).length + "]";
+        return value.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,116 @@
+package com.space.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last statements that ran longer than a threshold, kept in a fixed ring of
+ * capacity entries where each new one overwrites the oldest. Entries are filled
+ * in by {@link SlowQueryDataSource}; bind values are reduced to their types and
+ * lengths so that no row data is kept.
+ */
+public class SlowQueryLog {
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowQuery> ring;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowQueryLog(long thresholdMs, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Slow query log capacity " + capacity + " is less than 1");
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    public long getLogged() {
+        return sequence.get();
+    }
+
+    SlowQuery add(String sql, List<String> parameters, int batchSize, long nanos) {
+        SlowQuery query = new SlowQuery();
+        query.sequence = sequence.incrementAndGet();
+        query.timestamp = System.currentTimeMillis();
+        query.thread = Thread.currentThread().getName();
+        query.sql = sql;
+        query.parameters = parameters;
+        query.batchSize = batchSize;
+        query.durationMicros = TimeUnit.NANOSECONDS.toMicros(nanos);
+
+        ring.set((int) ((query.sequence - 1) % ring.length()), query);
+        return query;
+    }
+
+    // newest first
+    public List<SlowQuery> entries(long minDurationMs) {
+        long minMicros = TimeUnit.MILLISECONDS.toMicros(minDurationMs);
+        List<SlowQuery> entries = new ArrayList<>();
+        for (int i = 0; i < ring.length(); i++) {
+            SlowQuery query = ring.get(i);
+            if (query != null && query.durationMicros >= minMicros)
+                entries.add(query);
+        }
+        entries.sort(Comparator.comparingLong(SlowQuery::getSequence).reversed());
+        return entries;
+    }
+
+    public static class SlowQuery {
+        private long sequence;
+        private long timestamp;
+        private String thread;
+        private String sql;
+        private List<String> parameters;
+        private int batchSize;
+        //rows returned or changed, counted as a result set is read; -1 if the driver did not say
+        private volatile long rows;
+        private long durationMicros;
+
+        void addRows(long count) {
+            if (rows >= 0)
+                rows += count;
+        }
+
+        void rowsUnknown() {
+            rows = -1;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<String> getParameters() {
+            return parameters;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getDurationMicros() {
+            return durationMicros;
+        }
+    }
+}
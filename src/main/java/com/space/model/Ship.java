@@ -1,10 +1,16 @@
 package com.space.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "ship")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ship {
 
     @Id
@@ -37,6 +43,28 @@ public class Ship {
     @Column(name = "rating")
     private Double rating;
 
+    //sent as the ETag header, not in the body
+    @Version
+    @Column(name = "version")
+    @JsonIgnore
+    private Long version;
+
+
+    public Ship() {
+    }
+
+    public Ship(Ship ship) {
+        this.id = ship.id;
+        this.name = ship.name;
+        this.planet = ship.planet;
+        this.shipType = ship.shipType;
+        this.prodDate = ship.prodDate;
+        this.isUsed = ship.isUsed;
+        this.speed = ship.speed;
+        this.crewSize = ship.crewSize;
+        this.rating = ship.rating;
+        this.version = ship.version;
+    }
 
     public Long getId() {
         return id;
@@ -109,4 +137,12 @@ public class Ship {
     public void setRating(Double rating) {
         this.rating = rating;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
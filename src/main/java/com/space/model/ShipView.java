@@ -0,0 +1,116 @@
+package com.space.model;
+
+import java.util.Date;
+
+/**
+ * Read-only copy of a ship row for list pages and exports. It is built by a constructor
+ * expression straight from the query result, so no managed entity, snapshot or boxed
+ * number is kept per row. The bits of nulls mark the numbers the row did not have.
+ */
+public final class ShipView {
+
+    public static final int NO_PROD_DATE = 1;
+    public static final int NO_USED = 1 << 1;
+    public static final int NO_SPEED = 1 << 2;
+    public static final int NO_CREW_SIZE = 1 << 3;
+    public static final int NO_RATING = 1 << 4;
+
+    private final long id;
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final long prodDate;
+    private final boolean used;
+    private final double speed;
+    private final int crewSize;
+    private final double rating;
+    private final byte nulls;
+
+    public ShipView(long id, String name, String planet, ShipType shipType, long prodDate, boolean used,
+                    double speed, int crewSize, double rating, int nulls) {
+        this.id = id;
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.prodDate = prodDate;
+        this.used = used;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+        this.nulls = (byte) nulls;
+    }
+
+    //the parameter types are those of the selected attributes, Hibernate looks the constructor up by them
+    public ShipView(Long id, String name, String planet, ShipType shipType, Date prodDate, Boolean used,
+                    Double speed, Integer crewSize, Double rating) {
+        this(id, name, planet, shipType,
+                prodDate == null ? 0 : prodDate.getTime(),
+                used != null && used,
+                speed == null ? 0 : speed,
+                crewSize == null ? 0 : crewSize,
+                rating == null ? 0 : rating,
+                (prodDate == null ? NO_PROD_DATE : 0) | (used == null ? NO_USED : 0) | (speed == null ? NO_SPEED : 0)
+                        | (crewSize == null ? NO_CREW_SIZE : 0) | (rating == null ? NO_RATING : 0));
+    }
+
+    public ShipView(Ship ship) {
+        this(ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(), ship.getUsed(),
+                ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public boolean hasProdDate() {
+        return (nulls & NO_PROD_DATE) == 0;
+    }
+
+    public long getProdDate() {
+        return prodDate;
+    }
+
+    public boolean hasUsed() {
+        return (nulls & NO_USED) == 0;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+
+    public boolean hasSpeed() {
+        return (nulls & NO_SPEED) == 0;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public boolean hasCrewSize() {
+        return (nulls & NO_CREW_SIZE) == 0;
+    }
+
+    public int getCrewSize() {
+        return crewSize;
+    }
+
+    public boolean hasRating() {
+        return (nulls & NO_RATING) == 0;
+    }
+
+    public double getRating() {
+        return rating;
+    }
+}
@@ -0,0 +1,120 @@
+package com.space.repository;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the statements of read-only transactions to the replicas, taking them in turn,
+ * and everything else, writes and reads outside a transaction, to the primary.
+ *
+ * The target is chosen when a connection runs its first statement rather than when it
+ * is opened: JpaTransactionManager opens the connection before it marks the transaction
+ * read-only. A thread that asked for read-your-writes reads from the primary for
+ * readYourWritesMs after any write transaction committed, the replication lag allowed for.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final ThreadLocal<Boolean> READ_YOUR_WRITES = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long readYourWritesNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long lastCommitNanos;
+
+    //one instance, so a transaction registers it once however many connections it opens
+    private final TransactionSynchronization commitTracker = new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED)
+                lastCommitNanos = System.nanoTime();
+        }
+    };
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, long readYourWritesMs) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMs);
+        this.lastCommitNanos = System.nanoTime() - readYourWritesNanos;
+
+        Router router = new Router();
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Applies to the calling thread until changed; returns the previous setting so that it can be restored.
+     */
+    public static boolean setReadYourWrites(boolean readYourWrites) {
+        boolean previous = READ_YOUR_WRITES.get();
+        READ_YOUR_WRITES.set(readYourWrites);
+        return previous;
+    }
+
+    /**
+     * Whether a replica may not have a committed write yet, readYourWritesMs not having passed since the last commit.
+     */
+    public boolean isReplicaLagging() {
+        return !replicas.isEmpty() && System.nanoTime() - lastCommitNanos < readYourWritesNanos;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(primary);
+        for (DataSource replica : replicas) {
+            close(replica);
+        }
+    }
+
+    private static void close(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable)
+            ((Closeable) dataSource).close();
+    }
+
+    private class Router extends AbstractRoutingDataSource {
+
+        // null selects the primary
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                if (TransactionSynchronizationManager.isSynchronizationActive())
+                    TransactionSynchronizationManager.registerSynchronization(commitTracker);
+                return null;
+            }
+            if (replicas.isEmpty())
+                return null;
+            if (READ_YOUR_WRITES.get() && isReplicaLagging())
+                return null;
+            return Math.floorMod(next.getAndIncrement(), replicas.size());
+        }
+    }
+}
@@ -3,8 +3,14 @@ package com.space.repository;
 import com.space.model.Ship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship> {
+import java.util.Optional;
 
-}
+public interface ShipRepository extends JpaRepository<Ship, Long>, JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
 
+    // a query rather than a lookup, so the row is read from the database and not from the
+    // second-level cache; read-write, so that a replica never answers it
+    @Transactional
+    Optional<Ship> findCurrentById(Long id);
+}
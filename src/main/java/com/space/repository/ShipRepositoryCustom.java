@@ -0,0 +1,38 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ShipRepositoryCustom {
+
+    //read-only like the finders of SimpleJpaRepository, so that they can be served by a replica
+    @Transactional(readOnly = true)
+    List<ShipView> findFirst(Specification<Ship> specification, Sort sort, int limit);
+
+    @Transactional(readOnly = true)
+    Page<ShipView> findPage(Specification<Ship> specification, Pageable pageable);
+
+    void scroll(Specification<Ship> specification, Sort sort, int fetchSize, Consumer<ShipView> consumer);
+
+    void insertAll(List<Ship> ships, int batchSize);
+
+    int deleteAll(Specification<Ship> specification);
+
+    int deleteShip(Long id);
+
+    int updateAll(Specification<Ship> specification, Ship values);
+
+    int updateAll(Specification<Ship> specification, Ship values, boolean setRating);
+
+    int updateShip(Ship values, Ship expected);
+
+    List<Object[]> findRatingInputs(Specification<Ship> specification);
+}
@@ -0,0 +1,280 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ShipRepositoryCustomImpl implements ShipRepositoryCustom {
+
+    private static final String INSERT_SHIP = "insert into ship "
+            + "(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // Unlike findPage this issues neither OFFSET nor a count query
+    @Override
+    public List<ShipView> findFirst(Specification<Ship> specification, Sort sort, int limit) {
+        return entityManager.createQuery(viewQuery(specification, sort))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // the rows of findAll(Specification, Pageable) without loading them as entities
+    @Override
+    public Page<ShipView> findPage(Specification<Ship> specification, Pageable pageable) {
+        TypedQuery<ShipView> query = entityManager.createQuery(viewQuery(specification, pageable.getSort()));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+
+    // no entity is loaded, so the persistence context stays empty however many rows are read
+    @Override
+    @SuppressWarnings("unchecked")
+    public void scroll(Specification<Ship> specification, Sort sort, int fetchSize, Consumer<ShipView> consumer) {
+        Query<ShipView> scrollQuery = entityManager.createQuery(viewQuery(specification, sort)).unwrap(Query.class);
+        scrollQuery.setFetchSize(fetchSize);
+
+        try (ScrollableResults results = scrollQuery.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((ShipView) results.get(0));
+            }
+        }
+    }
+
+    @Override
+    public int deleteAll(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Ship> delete = cb.createCriteriaDelete(Ship.class);
+        Root<Ship> root = delete.from(Ship.class);
+
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null)
+            delete.where(predicate);
+
+        return entityManager.createQuery(delete).executeUpdate();
+    }
+
+    // by id alone, unlike delete(entity), which also matches the version of a possibly cached copy
+    @Override
+    public int deleteShip(Long id) {
+        return jdbcTemplate.update("delete from ship where id = ?", id);
+    }
+
+    // sets every non-null field of values, id excluded
+    @Override
+    public int updateAll(Specification<Ship> specification, Ship values) {
+        return updateAll(specification, values, false);
+    }
+
+    // with setRating the rating is written even when it is null
+    @Override
+    public int updateAll(Specification<Ship> specification, Ship values, boolean setRating) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ship> update = cb.createCriteriaUpdate(Ship.class);
+        Root<Ship> root = update.from(Ship.class);
+
+        if (values.getName() != null)
+            update.set(root.<String>get("name"), values.getName());
+        if (values.getPlanet() != null)
+            update.set(root.<String>get("planet"), values.getPlanet());
+        if (values.getShipType() != null)
+            update.set(root.get("shipType"), values.getShipType());
+        if (values.getProdDate() != null)
+            update.set(root.get("prodDate"), values.getProdDate());
+        if (values.getUsed() != null)
+            update.set(root.<Boolean>get("isUsed"), values.getUsed());
+        if (values.getSpeed() != null)
+            update.set(root.<Double>get("speed"), values.getSpeed());
+        if (values.getCrewSize() != null)
+            update.set(root.<Integer>get("crewSize"), values.getCrewSize());
+        if (values.getRating() != null)
+            update.set(root.<Double>get("rating"), values.getRating());
+        else if (setRating)
+            update.set(root.<Double>get("rating"), cb.nullLiteral(Double.class));
+        //bulk statements bypass @Version
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+
+        Predicate predicate = specification.toPredicate(root, null, cb);
+        if (predicate != null)
+            update.where(predicate);
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    // sets every non-null field of values where every non-null field of expected matches; plain JDBC,
+    // a bulk statement through Hibernate would evict every cached ship rather than this one
+    @Override
+    public int updateShip(Ship values, Ship expected) {
+        List<String> assignments = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        addColumn(assignments, parameters, "name", values.getName());
+        addColumn(assignments, parameters, "planet", values.getPlanet());
+        addColumn(assignments, parameters, "shipType", values.getShipType());
+        addColumn(assignments, parameters, "prodDate", values.getProdDate());
+        addColumn(assignments, parameters, "isUsed", values.getUsed());
+        addColumn(assignments, parameters, "speed", values.getSpeed());
+        addColumn(assignments, parameters, "crewSize", values.getCrewSize());
+        addColumn(assignments, parameters, "rating", values.getRating());
+        assignments.add("version = version + 1");
+
+        List<String> conditions = new ArrayList<>();
+        addColumn(conditions, parameters, "id", expected.getId());
+        addColumn(conditions, parameters, "version", expected.getVersion());
+        addColumn(conditions, parameters, "isUsed", expected.getUsed());
+        addColumn(conditions, parameters, "speed", expected.getSpeed());
+        addColumn(conditions, parameters, "prodDate", expected.getProdDate());
+
+        return jdbcTemplate.update("update ship set " + String.join(", ", assignments)
+                + " where " + String.join(" and ", conditions), parameters.toArray());
+    }
+
+    // distinct (speed, isUsed, year of prodDate) of the matching rows, locked until the transaction ends
+    @Override
+    public List<Object[]> findRatingInputs(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Ship> root = query.from(Ship.class);
+
+        query.multiselect(root.get("speed"), root.get("isUsed"), cb.function("year", Integer.class, root.get("prodDate")))
+                .distinct(true);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    // IDENTITY ids keep Hibernate from batching, so new ships go through plain JDBC batches
+    @Override
+    public void insertAll(List<Ship> ships, int batchSize) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SHIP, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < ships.size(); from += batchSize) {
+                    List<Ship> batch = ships.subList(from, Math.min(from + batchSize, ships.size()));
+                    for (Ship ship : batch) {
+                        bind(statement, ship);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Ship ship : batch) {
+                            keys.next();
+                            ship.setId(keys.getLong(1));
+                            ship.setVersion(0L);
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private CriteriaQuery<ShipView> viewQuery(Specification<Ship> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShipView> query = cb.createQuery(ShipView.class);
+        Root<Ship> root = query.from(Ship.class);
+
+        query.select(cb.construct(ShipView.class, root.get("id"), root.get("name"), root.get("planet"),
+                root.get("shipType"), root.get("prodDate"), root.get("isUsed"), root.get("speed"),
+                root.get("crewSize"), root.get("rating")));
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        query.orderBy(toOrders(sort, root, cb));
+        return query;
+    }
+
+    private long count(Specification<Ship> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(cb.count(root));
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (predicate != null)
+            query.where(predicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Order> toOrders(Sort sort, Root<Ship> root, CriteriaBuilder cb) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty())) : cb.desc(root.get(order.getProperty())));
+        }
+        return orders;
+    }
+
+    private static void addColumn(List<String> columns, List<Object> parameters, String column, Object value) {
+        if (value == null)
+            return;
+
+        columns.add(column + " = ?");
+        if (value instanceof ShipType)
+            parameters.add(((ShipType) value).name());
+        else if (value instanceof Date)
+            parameters.add(new Timestamp(((Date) value).getTime()));
+        else
+            parameters.add(value);
+    }
+
+    private static void bind(PreparedStatement statement, Ship ship) throws SQLException {
+        statement.setString(1, ship.getName());
+        statement.setString(2, ship.getPlanet());
+        statement.setString(3, ship.getShipType() == null ? null : ship.getShipType().name());
+        statement.setTimestamp(4, ship.getProdDate() == null ? null : new Timestamp(ship.getProdDate().getTime()));
+        statement.setObject(5, ship.getUsed(), Types.BIT);
+        statement.setObject(6, ship.getSpeed(), Types.DOUBLE);
+        statement.setObject(7, ship.getCrewSize(), Types.INTEGER);
+        statement.setObject(8, ship.getRating(), Types.DOUBLE);
+    }
+}
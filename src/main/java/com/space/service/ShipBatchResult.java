@@ -0,0 +1,43 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShipBatchResult {
+
+    private List<Ship> created = new ArrayList<>();
+    private List<ItemError> errors = new ArrayList<>();
+
+    public List<Ship> getCreated() {
+        return created;
+    }
+
+    public List<ItemError> getErrors() {
+        return errors;
+    }
+
+    void addError(int index, String message) {
+        errors.add(new ItemError(index, message));
+    }
+
+    public static class ItemError {
+
+        private int index;
+        private String message;
+
+        ItemError(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
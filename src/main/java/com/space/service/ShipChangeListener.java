@@ -0,0 +1,34 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notified by {@link ShipChangePublisher} once a change to the ship table is committed.
+ */
+public interface ShipChangeListener {
+
+    default void shipCreated(Ship ship) {
+    }
+
+    // the ships of one batch insert, delivered together
+    default void shipsCreated(List<Ship> ships) {
+        ships.forEach(this::shipCreated);
+    }
+
+    default void shipUpdated(Ship before, Ship after) {
+    }
+
+    default void shipDeleted(Ship ship) {
+    }
+
+    // only the ratings of these ships, by id, changed
+    default void ratingsChanged(Map<Long, Double> ratings) {
+    }
+
+    // set-based changes where individual rows are not known
+    default void shipsChanged() {
+    }
+}
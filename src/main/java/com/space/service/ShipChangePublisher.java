@@ -0,0 +1,82 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Component
+public class ShipChangePublisher {
+
+    //the start time keeps versions handed out before a restart from matching later ones
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong changes = new AtomicLong();
+
+    private List<ShipChangeListener> listeners = Collections.emptyList();
+
+    @Autowired(required = false)
+    public void setListeners(List<ShipChangeListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void shipCreated(Ship ship) {
+        publish(listener -> listener.shipCreated(ship));
+    }
+
+    public void shipsCreated(List<Ship> ships) {
+        publish(listener -> listener.shipsCreated(ships));
+    }
+
+    public void shipUpdated(Ship before, Ship after) {
+        publish(listener -> listener.shipUpdated(before, after));
+    }
+
+    public void shipDeleted(Ship ship) {
+        publish(listener -> listener.shipDeleted(ship));
+    }
+
+    public void ratingsChanged(Map<Long, Double> ratings) {
+        publish(listener -> listener.ratingsChanged(ratings));
+    }
+
+    public void shipsChanged() {
+        publish(ShipChangeListener::shipsChanged);
+    }
+
+    /**
+     * Changes with every committed write made through this publisher, after the listeners
+     * have seen it, so a reader that sees the new version also sees the refreshed caches.
+     * Rows changed by other instances or outside the application leave it as it is.
+     */
+    public String getTableVersion() {
+        return Long.toString(epoch, 36) + "-" + changes.get();
+    }
+
+    private void publish(Consumer<ShipChangeListener> event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(event);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == TransactionSynchronization.STATUS_COMMITTED)
+                    deliver(event);
+            }
+        });
+    }
+
+    private void deliver(Consumer<ShipChangeListener> event) {
+        listeners.forEach(event);
+        changes.incrementAndGet();
+    }
+}
@@ -0,0 +1,577 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.model.ShipType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Immutable column-oriented copy of the ship table. Rows are kept in id order,
+ * every {@link ShipOrder} has a precomputed row permutation. Missing values use
+ * NaN for doubles and MIN_VALUE / -1 sentinels elsewhere, so that they never pass
+ * a filter, like NULL in SQL.
+ */
+final class ShipColumns {
+
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final long NO_LONG = Long.MIN_VALUE;
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+    private static final ShipOrder[] SORTED_ORDERS = {ShipOrder.SPEED, ShipOrder.DATE, ShipOrder.RATING};
+
+    private final int size;
+    private final long[] ids;
+    private final int[] names;
+    private final int[] planets;
+    private final byte[] shipTypes;
+    private final long[] prodDates;
+    private final byte[] used;
+    private final double[] speeds;
+    private final int[] crewSizes;
+    private final double[] ratings;
+
+    private final String[] nameDictionary;
+    private final String[] planetDictionary;
+    private final String[] normalizedNames;
+    private final String[] normalizedPlanets;
+
+    private final Map<ShipOrder, int[]> orders = new EnumMap<>(ShipOrder.class);
+
+    private ShipColumns(Builder builder) {
+        this(builder.size, Arrays.copyOf(builder.ids, builder.size), Arrays.copyOf(builder.names, builder.size),
+                Arrays.copyOf(builder.planets, builder.size), Arrays.copyOf(builder.shipTypes, builder.size),
+                Arrays.copyOf(builder.prodDates, builder.size), Arrays.copyOf(builder.used, builder.size),
+                Arrays.copyOf(builder.speeds, builder.size), Arrays.copyOf(builder.crewSizes, builder.size),
+                Arrays.copyOf(builder.ratings, builder.size),
+                builder.nameDictionary.toArray(new String[0]), normalize(builder.nameDictionary),
+                builder.planetDictionary.toArray(new String[0]), normalize(builder.planetDictionary));
+
+        orders.put(ShipOrder.ID, identity(size));
+        for (ShipOrder order : SORTED_ORDERS) {
+            orders.put(order, sortRows(order));
+        }
+    }
+
+    // the permutations are left to the caller
+    private ShipColumns(int size, long[] ids, int[] names, int[] planets, byte[] shipTypes, long[] prodDates,
+                        byte[] used, double[] speeds, int[] crewSizes, double[] ratings,
+                        String[] nameDictionary, String[] normalizedNames,
+                        String[] planetDictionary, String[] normalizedPlanets) {
+        this.size = size;
+        this.ids = ids;
+        this.names = names;
+        this.planets = planets;
+        this.shipTypes = shipTypes;
+        this.prodDates = prodDates;
+        this.used = used;
+        this.speeds = speeds;
+        this.crewSizes = crewSizes;
+        this.ratings = ratings;
+
+        this.nameDictionary = nameDictionary;
+        this.normalizedNames = normalizedNames;
+        this.planetDictionary = planetDictionary;
+        this.normalizedPlanets = normalizedPlanets;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long count(ShipFilter filter) {
+        IntPredicate predicate = compile(filter);
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (predicate.test(row))
+                count++;
+        }
+        return count;
+    }
+
+    Page<ShipView> find(ShipFilter filter, ShipOrder order, Pageable pageable) {
+        IntPredicate predicate = compile(filter);
+        long first = pageable.getOffset();
+        long last = first + pageable.getPageSize();
+
+        List<ShipView> content = new ArrayList<>(pageable.getPageSize());
+        long matched = 0;
+        for (int row : orders.get(order)) {
+            if (!predicate.test(row))
+                continue;
+            if (matched >= first && matched < last)
+                content.add(toView(row));
+            matched++;
+        }
+        return new PageImpl<>(content, pageable, matched);
+    }
+
+    /**
+     * The row of the ship goes to its place in id order and into each permutation at the
+     * position a binary search finds, so a single write costs array copies rather than
+     * a sort. Values no row uses any more stay in the dictionaries until they outgrow the
+     * rows, then the copy is rebuilt.
+     */
+    ShipColumns with(Ship ship) {
+        ShipColumns columns = without(ship.getId());
+        int row = -Arrays.binarySearch(columns.ids, 0, columns.size, ship.getId()) - 1;
+        ShipColumns inserted = columns.insert(row, ship);
+
+        if (inserted.nameDictionary.length > 2 * inserted.size + 16
+                || inserted.planetDictionary.length > 2 * inserted.size + 16)
+            return inserted.rebuild();
+        return inserted;
+    }
+
+    // one rebuild for the whole batch rather than a copy of every column per ship
+    ShipColumns withAll(List<Ship> ships) {
+        if (ships.isEmpty())
+            return this;
+        if (ships.size() == 1)
+            return with(ships.get(0));
+
+        List<Ship> sorted = new ArrayList<>(ships);
+        sorted.sort(Comparator.comparing(Ship::getId));
+        Builder builder = new Builder(size + sorted.size());
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            while (next < sorted.size() && sorted.get(next).getId() < ids[row]) {
+                builder.add(sorted.get(next++));
+            }
+            if (next < sorted.size() && sorted.get(next).getId() == ids[row])
+                builder.add(sorted.get(next++));
+            else
+                builder.copy(this, row);
+        }
+        while (next < sorted.size()) {
+            builder.add(sorted.get(next++));
+        }
+        return builder.build();
+    }
+
+    // the other columns and permutations are shared, only the rating order is sorted again
+    ShipColumns withRatings(Map<Long, Double> changed) {
+        double[] ratings = this.ratings.clone();
+        for (Map.Entry<Long, Double> rating : changed.entrySet()) {
+            int row = Arrays.binarySearch(ids, 0, size, rating.getKey());
+            if (row >= 0)
+                ratings[row] = rating.getValue() == null ? Double.NaN : rating.getValue();
+        }
+
+        ShipColumns columns = new ShipColumns(size, ids, names, planets, shipTypes, prodDates, used, speeds, crewSizes,
+                ratings, nameDictionary, normalizedNames, planetDictionary, normalizedPlanets);
+        columns.orders.putAll(orders);
+        columns.orders.put(ShipOrder.RATING, columns.sortRows(ShipOrder.RATING));
+        return columns;
+    }
+
+    ShipColumns without(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        if (row < 0)
+            return this;
+
+        ShipColumns columns = new ShipColumns(size - 1, remove(ids, row), remove(names, row), remove(planets, row),
+                remove(shipTypes, row), remove(prodDates, row), remove(used, row), remove(speeds, row),
+                remove(crewSizes, row), remove(ratings, row),
+                nameDictionary, normalizedNames, planetDictionary, normalizedPlanets);
+
+        for (ShipOrder order : ShipOrder.values()) {
+            int[] rows = orders.get(order);
+            int[] shifted = new int[size - 1];
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                if (rows[i] != row)
+                    shifted[next++] = rows[i] > row ? rows[i] - 1 : rows[i];
+            }
+            columns.orders.put(order, shifted);
+        }
+        return columns;
+    }
+
+    private ShipColumns insert(int row, Ship ship) {
+        String[] names = nameDictionary;
+        String[] normalizedNames = this.normalizedNames;
+        int name = indexOf(names, ship.getName());
+        if (ship.getName() != null && name < 0) {
+            name = names.length;
+            names = append(names, ship.getName());
+            normalizedNames = append(normalizedNames, ShipTextIndex.normalize(ship.getName()));
+        }
+        String[] planets = planetDictionary;
+        String[] normalizedPlanets = this.normalizedPlanets;
+        int planet = indexOf(planets, ship.getPlanet());
+        if (ship.getPlanet() != null && planet < 0) {
+            planet = planets.length;
+            planets = append(planets, ship.getPlanet());
+            normalizedPlanets = append(normalizedPlanets, ShipTextIndex.normalize(ship.getPlanet()));
+        }
+
+        ShipColumns columns = new ShipColumns(size + 1,
+                insert(ids, row, ship.getId()),
+                insert(this.names, row, name),
+                insert(this.planets, row, planet),
+                insert(shipTypes, row, ship.getShipType() == null ? -1 : (byte) ship.getShipType().ordinal()),
+                insert(prodDates, row, ship.getProdDate() == null ? NO_LONG : ship.getProdDate().getTime()),
+                insert(used, row, ship.getUsed() == null ? -1 : (byte) (ship.getUsed() ? 1 : 0)),
+                insert(speeds, row, ship.getSpeed() == null ? Double.NaN : ship.getSpeed()),
+                insert(crewSizes, row, ship.getCrewSize() == null ? NO_INT : ship.getCrewSize()),
+                insert(ratings, row, ship.getRating() == null ? Double.NaN : ship.getRating()),
+                names, normalizedNames, planets, normalizedPlanets);
+
+        for (ShipOrder order : ShipOrder.values()) {
+            int[] rows = orders.get(order);
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int other = rows[middle] >= row ? rows[middle] + 1 : rows[middle];
+                if (columns.compare(order, other, row) < 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            int[] shifted = new int[size + 1];
+            for (int i = 0; i < size; i++) {
+                shifted[i < low ? i : i + 1] = rows[i] >= row ? rows[i] + 1 : rows[i];
+            }
+            shifted[low] = row;
+            columns.orders.put(order, shifted);
+        }
+        return columns;
+    }
+
+    // drops the dictionary values no row uses
+    private ShipColumns rebuild() {
+        Builder builder = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            builder.copy(this, row);
+        }
+        return builder.build();
+    }
+
+    private IntPredicate compile(ShipFilter filter) {
+        List<IntPredicate> predicates = new ArrayList<>();
+
+        if (filter.getName() != null) {
+            boolean[] matching = matchingCodes(normalizedNames, filter.getName());
+            predicates.add(row -> names[row] >= 0 && matching[names[row]]);
+        }
+        if (filter.getPlanet() != null) {
+            boolean[] matching = matchingCodes(normalizedPlanets, filter.getPlanet());
+            predicates.add(row -> planets[row] >= 0 && matching[planets[row]]);
+        }
+        if (filter.getShipType() != null) {
+            byte ordinal = (byte) filter.getShipType().ordinal();
+            predicates.add(row -> shipTypes[row] == ordinal);
+        }
+        if (filter.getAfter() != null) {
+            long after = filter.getAfter();
+            predicates.add(row -> prodDates[row] != NO_LONG && prodDates[row] >= after);
+        }
+        if (filter.getBefore() != null) {
+            long before = filter.getBefore();
+            predicates.add(row -> prodDates[row] != NO_LONG && prodDates[row] <= before);
+        }
+        if (filter.getIsUsed() != null) {
+            byte value = (byte) (filter.getIsUsed() ? 1 : 0);
+            predicates.add(row -> used[row] == value);
+        }
+        if (filter.getMinSpeed() != null) {
+            double min = filter.getMinSpeed();
+            predicates.add(row -> speeds[row] >= min);
+        }
+        if (filter.getMaxSpeed() != null) {
+            double max = filter.getMaxSpeed();
+            predicates.add(row -> speeds[row] <= max);
+        }
+        if (filter.getMinCrewSize() != null) {
+            int min = filter.getMinCrewSize();
+            predicates.add(row -> crewSizes[row] != NO_INT && crewSizes[row] >= min);
+        }
+        if (filter.getMaxCrewSize() != null) {
+            int max = filter.getMaxCrewSize();
+            predicates.add(row -> crewSizes[row] != NO_INT && crewSizes[row] <= max);
+        }
+        if (filter.getMinRating() != null) {
+            double min = filter.getMinRating();
+            predicates.add(row -> ratings[row] >= min);
+        }
+        if (filter.getMaxRating() != null) {
+            double max = filter.getMaxRating();
+            predicates.add(row -> ratings[row] <= max);
+        }
+
+        IntPredicate[] all = predicates.toArray(new IntPredicate[0]);
+        return row -> {
+            for (IntPredicate predicate : all) {
+                if (!predicate.test(row))
+                    return false;
+            }
+            return true;
+        };
+    }
+
+    // the substring test runs once per distinct value instead of once per row
+    private static boolean[] matchingCodes(String[] normalizedDictionary, String substring) {
+        String normalized = ShipTextIndex.normalize(substring);
+        boolean[] matching = new boolean[normalizedDictionary.length];
+        for (int code = 0; code < normalizedDictionary.length; code++) {
+            matching[code] = normalizedDictionary[code].contains(normalized);
+        }
+        return matching;
+    }
+
+    private ShipView toView(int row) {
+        int nulls = (prodDates[row] == NO_LONG ? ShipView.NO_PROD_DATE : 0)
+                | (used[row] < 0 ? ShipView.NO_USED : 0)
+                | (Double.isNaN(speeds[row]) ? ShipView.NO_SPEED : 0)
+                | (crewSizes[row] == NO_INT ? ShipView.NO_CREW_SIZE : 0)
+                | (Double.isNaN(ratings[row]) ? ShipView.NO_RATING : 0);
+        return new ShipView(ids[row],
+                names[row] < 0 ? null : nameDictionary[names[row]],
+                planets[row] < 0 ? null : planetDictionary[planets[row]],
+                shipTypes[row] < 0 ? null : SHIP_TYPES[shipTypes[row]],
+                prodDates[row], used[row] == 1, speeds[row], crewSizes[row], ratings[row], nulls);
+    }
+
+    // the order of every permutation: the sort column, then the id, which is the row order
+    private int compare(ShipOrder order, int a, int b) {
+        int result;
+        switch (order) {
+            case SPEED:
+                result = compareNullsFirst(speeds[a], speeds[b]);
+                break;
+            case DATE:
+                result = Long.compare(prodDates[a], prodDates[b]);
+                break;
+            case RATING:
+                result = compareNullsFirst(ratings[a], ratings[b]);
+                break;
+            default:
+                result = 0;
+        }
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    // MySQL sorts NULL before any value in ascending order
+    private static int compareNullsFirst(double a, double b) {
+        boolean aNull = Double.isNaN(a);
+        boolean bNull = Double.isNaN(b);
+        if (aNull || bNull)
+            return aNull == bNull ? 0 : (aNull ? -1 : 1);
+        return Double.compare(a, b);
+    }
+
+    private static String[] normalize(List<String> dictionary) {
+        String[] normalized = new String[dictionary.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = ShipTextIndex.normalize(dictionary.get(i));
+        }
+        return normalized;
+    }
+
+    private static int[] identity(int size) {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    // merge sort over row numbers, avoids boxing them for Collections.sort
+    private int[] sortRows(ShipOrder order) {
+        int[] rows = identity(size);
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, size);
+                int i = low, j = middle, k = low;
+                while (i < middle && j < high) {
+                    buffer[k++] = compare(order, rows[j], rows[i]) < 0 ? rows[j++] : rows[i++];
+                }
+                while (i < middle) {
+                    buffer[k++] = rows[i++];
+                }
+                while (j < high) {
+                    buffer[k++] = rows[j++];
+                }
+                System.arraycopy(buffer, low, rows, low, high - low);
+            }
+        }
+        return rows;
+    }
+
+    private static int indexOf(String[] dictionary, String value) {
+        if (value == null)
+            return -1;
+
+        for (int code = 0; code < dictionary.length; code++) {
+            if (dictionary[code].equals(value))
+                return code;
+        }
+        return -1;
+    }
+
+    private static String[] append(String[] dictionary, String value) {
+        String[] appended = Arrays.copyOf(dictionary, dictionary.length + 1);
+        appended[dictionary.length] = value;
+        return appended;
+    }
+
+    private static long[] insert(long[] column, int row, long value) {
+        long[] inserted = new long[column.length + 1];
+        System.arraycopy(column, 0, inserted, 0, row);
+        inserted[row] = value;
+        System.arraycopy(column, row, inserted, row + 1, column.length - row);
+        return inserted;
+    }
+
+    private static int[] insert(int[] column, int row, int value) {
+        int[] inserted = new int[column.length + 1];
+        System.arraycopy(column, 0, inserted, 0, row);
+        inserted[row] = value;
+        System.arraycopy(column, row, inserted, row + 1, column.length - row);
+        return inserted;
+    }
+
+    private static byte[] insert(byte[] column, int row, int value) {
+        byte[] inserted = new byte[column.length + 1];
+        System.arraycopy(column, 0, inserted, 0, row);
+        inserted[row] = (byte) value;
+        System.arraycopy(column, row, inserted, row + 1, column.length - row);
+        return inserted;
+    }
+
+    private static double[] insert(double[] column, int row, double value) {
+        double[] inserted = new double[column.length + 1];
+        System.arraycopy(column, 0, inserted, 0, row);
+        inserted[row] = value;
+        System.arraycopy(column, row, inserted, row + 1, column.length - row);
+        return inserted;
+    }
+
+    private static long[] remove(long[] column, int row) {
+        long[] removed = new long[column.length - 1];
+        System.arraycopy(column, 0, removed, 0, row);
+        System.arraycopy(column, row + 1, removed, row, removed.length - row);
+        return removed;
+    }
+
+    private static int[] remove(int[] column, int row) {
+        int[] removed = new int[column.length - 1];
+        System.arraycopy(column, 0, removed, 0, row);
+        System.arraycopy(column, row + 1, removed, row, removed.length - row);
+        return removed;
+    }
+
+    private static byte[] remove(byte[] column, int row) {
+        byte[] removed = new byte[column.length - 1];
+        System.arraycopy(column, 0, removed, 0, row);
+        System.arraycopy(column, row + 1, removed, row, removed.length - row);
+        return removed;
+    }
+
+    private static double[] remove(double[] column, int row) {
+        double[] removed = new double[column.length - 1];
+        System.arraycopy(column, 0, removed, 0, row);
+        System.arraycopy(column, row + 1, removed, row, removed.length - row);
+        return removed;
+    }
+
+    static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private int[] names;
+        private int[] planets;
+        private byte[] shipTypes;
+        private long[] prodDates;
+        private byte[] used;
+        private double[] speeds;
+        private int[] crewSizes;
+        private double[] ratings;
+
+        private final List<String> nameDictionary = new ArrayList<>();
+        private final List<String> planetDictionary = new ArrayList<>();
+        private final Map<String, Integer> nameCodes = new HashMap<>();
+        private final Map<String, Integer> planetCodes = new HashMap<>();
+
+        Builder(int capacity) {
+            allocate(Math.max(capacity, 16));
+        }
+
+        Builder add(Ship ship) {
+            ensureCapacity();
+            ids[size] = ship.getId();
+            names[size] = encode(ship.getName(), nameDictionary, nameCodes);
+            planets[size] = encode(ship.getPlanet(), planetDictionary, planetCodes);
+            shipTypes[size] = ship.getShipType() == null ? -1 : (byte) ship.getShipType().ordinal();
+            prodDates[size] = ship.getProdDate() == null ? NO_LONG : ship.getProdDate().getTime();
+            used[size] = ship.getUsed() == null ? -1 : (byte) (ship.getUsed() ? 1 : 0);
+            speeds[size] = ship.getSpeed() == null ? Double.NaN : ship.getSpeed();
+            crewSizes[size] = ship.getCrewSize() == null ? NO_INT : ship.getCrewSize();
+            ratings[size] = ship.getRating() == null ? Double.NaN : ship.getRating();
+            size++;
+            return this;
+        }
+
+        void copy(ShipColumns columns, int row) {
+            ensureCapacity();
+            ids[size] = columns.ids[row];
+            names[size] = columns.names[row] < 0 ? -1
+                    : encode(columns.nameDictionary[columns.names[row]], nameDictionary, nameCodes);
+            planets[size] = columns.planets[row] < 0 ? -1
+                    : encode(columns.planetDictionary[columns.planets[row]], planetDictionary, planetCodes);
+            shipTypes[size] = columns.shipTypes[row];
+            prodDates[size] = columns.prodDates[row];
+            used[size] = columns.used[row];
+            speeds[size] = columns.speeds[row];
+            crewSizes[size] = columns.crewSizes[row];
+            ratings[size] = columns.ratings[row];
+            size++;
+        }
+
+        ShipColumns build() {
+            return new ShipColumns(this);
+        }
+
+        private static int encode(String value, List<String> dictionary, Map<String, Integer> codes) {
+            if (value == null)
+                return -1;
+
+            return codes.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+
+        private void ensureCapacity() {
+            if (size == ids.length)
+                allocate(ids.length * 2);
+        }
+
+        private void allocate(int capacity) {
+            ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+            names = names == null ? new int[capacity] : Arrays.copyOf(names, capacity);
+            planets = planets == null ? new int[capacity] : Arrays.copyOf(planets, capacity);
+            shipTypes = shipTypes == null ? new byte[capacity] : Arrays.copyOf(shipTypes, capacity);
+            prodDates = prodDates == null ? new long[capacity] : Arrays.copyOf(prodDates, capacity);
+            used = used == null ? new byte[capacity] : Arrays.copyOf(used, capacity);
+            speeds = speeds == null ? new double[capacity] : Arrays.copyOf(speeds, capacity);
+            crewSizes = crewSizes == null ? new int[capacity] : Arrays.copyOf(crewSizes, capacity);
+            ratings = ratings == null ? new double[capacity] : Arrays.copyOf(ratings, capacity);
+        }
+    }
+}
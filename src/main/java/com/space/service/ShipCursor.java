@@ -0,0 +1,102 @@
+package com.space.service;
+
+import com.space.BadRequestException;
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last returned ship in a keyset scan: the value of the
+ * {@link ShipOrder} field plus the id as a tie-breaker. A missing value is kept
+ * as null and sorts before every other, as MySQL orders NULL ascending.
+ */
+class ShipCursor {
+
+    private final ShipOrder order;
+    private final Comparable<?> value;
+    private final Long id;
+
+    private ShipCursor(ShipOrder order, Comparable<?> value, Long id) {
+        this.order = order;
+        this.value = value;
+        this.id = id;
+    }
+
+    static ShipCursor after(ShipOrder order, ShipView ship) {
+        switch (order) {
+            case SPEED:
+                return new ShipCursor(order, ship.hasSpeed() ? ship.getSpeed() : null, ship.getId());
+            case DATE:
+                return new ShipCursor(order, ship.hasProdDate() ? ship.getProdDate() : null, ship.getId());
+            case RATING:
+                return new ShipCursor(order, ship.hasRating() ? ship.getRating() : null, ship.getId());
+            default:
+                return new ShipCursor(order, ship.getId(), ship.getId());
+        }
+    }
+
+    static ShipCursor decode(String token, ShipOrder expectedOrder) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", -1);
+            if (parts.length != 3)
+                throw new BadRequestException("Incorrect cursor");
+
+            ShipOrder order = ShipOrder.valueOf(parts[0]);
+            if (order != expectedOrder)
+                throw new BadRequestException("Cursor was issued for order " + order);
+
+            Long id = Long.parseLong(parts[2]);
+            if (parts[1].isEmpty() && order != ShipOrder.ID)
+                return new ShipCursor(order, null, id);
+            switch (order) {
+                case SPEED:
+                case RATING:
+                    return new ShipCursor(order, Double.parseDouble(parts[1]), id);
+                case DATE:
+                    return new ShipCursor(order, Long.parseLong(parts[1]), id);
+                default:
+                    return new ShipCursor(order, id, id);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Incorrect cursor", e);
+        }
+    }
+
+    String encode() {
+        String raw = order.name() + ":" + (value == null ? "" : value) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Specification<Ship> toSpecification() {
+        return (root, query, cb) -> {
+            switch (order) {
+                case SPEED:
+                case RATING:
+                    return seek(root, cb, order.getFieldName(), (Double) value);
+                case DATE:
+                    return seek(root, cb, order.getFieldName(), value == null ? null : new Date((Long) value));
+                default:
+                    return cb.greaterThan(root.get("id"), id);
+            }
+        };
+    }
+
+    // after a NULL come the NULLs with a greater id and then every value; after a value, NULLs never come
+    private <T extends Comparable<? super T>> Predicate seek(Root<Ship> root, CriteriaBuilder cb, String field, T fieldValue) {
+        Path<T> path = root.get(field);
+        if (fieldValue == null)
+            return cb.or(cb.isNotNull(path), cb.and(cb.isNull(path), cb.greaterThan(root.get("id"), id)));
+        return cb.or(cb.greaterThan(path, fieldValue),
+                cb.and(cb.equal(path, fieldValue), cb.greaterThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,224 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.Date;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+public class ShipFilter {
+
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private String name;
+    private String planet;
+    private ShipType shipType;
+    private Long after;
+    private Long before;
+    private Boolean isUsed;
+    private Double minSpeed;
+    private Double maxSpeed;
+    private Integer minCrewSize;
+    private Integer maxCrewSize;
+    private Double minRating;
+    private Double maxRating;
+
+    public ShipFilter() {
+    }
+
+    public ShipFilter(ShipFilter filter) {
+        this.name = filter.name;
+        this.planet = filter.planet;
+        this.shipType = filter.shipType;
+        this.after = filter.after;
+        this.before = filter.before;
+        this.isUsed = filter.isUsed;
+        this.minSpeed = filter.minSpeed;
+        this.maxSpeed = filter.maxSpeed;
+        this.minCrewSize = filter.minCrewSize;
+        this.maxCrewSize = filter.maxCrewSize;
+        this.minRating = filter.minRating;
+        this.maxRating = filter.maxRating;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public void setPlanet(String planet) {
+        this.planet = planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public void setShipType(ShipType shipType) {
+        this.shipType = shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public void setAfter(Long after) {
+        this.after = after;
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public void setBefore(Long before) {
+        this.before = before;
+    }
+
+    public Boolean getIsUsed() {
+        return isUsed;
+    }
+
+    public void setIsUsed(Boolean isUsed) {
+        this.isUsed = isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public void setMinSpeed(Double minSpeed) {
+        this.minSpeed = minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public void setMaxSpeed(Double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public void setMinCrewSize(Integer minCrewSize) {
+        this.minCrewSize = minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public void setMaxCrewSize(Integer maxCrewSize) {
+        this.maxCrewSize = maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    public void setMaxRating(Double maxRating) {
+        this.maxRating = maxRating;
+    }
+
+    public boolean isEmpty() {
+        return equals(new ShipFilter());
+    }
+
+    /**
+     * Evaluates the filter against a single ship the way {@code ShipService.filterBy} does in SQL.
+     * Name and planet checks err on the side of a match where the collation cannot be mirrored exactly.
+     */
+    public boolean matches(Ship ship) {
+        return mayContain(ship.getName(), name)
+                && mayContain(ship.getPlanet(), planet)
+                && (shipType == null || shipType == ship.getShipType())
+                && mayBeWithin(ship.getProdDate(), after, before)
+                && (isUsed == null || isUsed.equals(ship.getUsed()))
+                && inRange(ship.getSpeed(), minSpeed, maxSpeed)
+                && inRange(ship.getCrewSize(), minCrewSize, maxCrewSize)
+                && inRange(ship.getRating(), minRating, maxRating);
+    }
+
+    private static boolean mayContain(String value, String substring) {
+        if (substring == null)
+            return true;
+        if (value == null)
+            return false;
+        if (!isAscii(value) || !isAscii(substring) || substring.indexOf('%') >= 0
+                || substring.indexOf('_') >= 0 || substring.indexOf('\\') >= 0)
+            return true;
+
+        return ShipTextIndex.normalize(value).contains(ShipTextIndex.normalize(substring));
+    }
+
+    // prodDate is a DATE column, so the stored value may be truncated to a day in the connection time zone
+    private static boolean mayBeWithin(Date prodDate, Long after, Long before) {
+        if (after == null && before == null)
+            return true;
+        if (prodDate == null)
+            return false;
+
+        long time = prodDate.getTime();
+        return (after == null || time + DAY_MILLIS >= after) && (before == null || time - DAY_MILLIS <= before);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127)
+                return false;
+        }
+        return true;
+    }
+
+    private static <T extends Comparable<T>> boolean inRange(T value, T min, T max) {
+        if (min == null && max == null)
+            return true;
+        if (value == null)
+            return false;
+
+        return (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipFilter that = (ShipFilter) o;
+        return Objects.equals(name, that.name)
+                && Objects.equals(planet, that.planet)
+                && shipType == that.shipType
+                && Objects.equals(after, that.after)
+                && Objects.equals(before, that.before)
+                && Objects.equals(isUsed, that.isUsed)
+                && Objects.equals(minSpeed, that.minSpeed)
+                && Objects.equals(maxSpeed, that.maxSpeed)
+                && Objects.equals(minCrewSize, that.minCrewSize)
+                && Objects.equals(maxCrewSize, that.maxCrewSize)
+                && Objects.equals(minRating, that.minRating)
+                && Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, isUsed,
+                minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+}
@@ -0,0 +1,123 @@
+package com.space.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShipImport {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum State {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final long id;
+    private final String format;
+    private final Date startedAt = new Date();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile State state = State.RUNNING;
+    private volatile Date finishedAt;
+    private volatile String failure;
+
+    ShipImport(long id, String format) {
+        this.id = id;
+        this.format = format;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    // only the first rejected rows are kept, the count covers all of them
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void imported(long count) {
+        imported.addAndGet(count);
+    }
+
+    void reject(long line, String message) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS)
+                errors.add(new RowError(line, message));
+        }
+    }
+
+    void complete() {
+        finishedAt = new Date();
+        state = State.COMPLETED;
+    }
+
+    void fail(String message) {
+        failure = message;
+        finishedAt = new Date();
+        state = State.FAILED;
+    }
+
+    public static class RowError {
+
+        private long line;
+        private String message;
+
+        RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.space.service;
+
+import com.space.BadRequestException;
+import com.space.model.Ship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads ships from a {@link ShipRowReader} in chunks of commitSize rows, each chunk
+ * validated and inserted in its own transaction through {@link ShipService#createShips}.
+ * Only the current chunk is held in memory.
+ */
+@Component
+public class ShipImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipImporter.class);
+
+    private static final int RECENT_IMPORTS = 20;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Deque<ShipImport> recent = new ArrayDeque<>();
+
+    private ShipService service;
+    private int commitSize;
+
+    @Autowired
+    public void setService(ShipService service) {
+        this.service = service;
+    }
+
+    @Value("${cosmoport.import.commitSize:1000}")
+    public void setCommitSize(int commitSize) {
+        this.commitSize = commitSize;
+    }
+
+    public ShipImport importShips(String format, ShipRowReader reader) {
+        ShipImport shipImport = new ShipImport(ids.incrementAndGet(), format);
+        synchronized (recent) {
+            recent.addFirst(shipImport);
+            if (recent.size() > RECENT_IMPORTS)
+                recent.removeLast();
+        }
+
+        List<Ship> chunk = new ArrayList<>(commitSize);
+        long[] lines = new long[commitSize];
+        try {
+            while (true) {
+                Ship ship;
+                try {
+                    ship = reader.next();
+                } catch (BadRequestException e) {
+                    shipImport.rowRead();
+                    shipImport.reject(reader.getLine(), e.getMessage());
+                    continue;
+                }
+                if (ship == null)
+                    break;
+
+                shipImport.rowRead();
+                lines[chunk.size()] = reader.getLine();
+                chunk.add(ship);
+                if (chunk.size() == commitSize)
+                    commit(shipImport, chunk, lines);
+            }
+            commit(shipImport, chunk, lines);
+            shipImport.complete();
+        } catch (IOException | RuntimeException e) {
+            //chunks committed so far stay, the report tells how far the import got
+            log.warn("Ship import {} failed after {} rows", shipImport.getId(), shipImport.getRowsRead(), e);
+            shipImport.fail(e.getMessage());
+        }
+        return shipImport;
+    }
+
+    public List<ShipImport> recentImports() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    private void commit(ShipImport shipImport, List<Ship> chunk, long[] lines) {
+        if (chunk.isEmpty())
+            return;
+
+        ShipBatchResult result = service.createShips(chunk);
+        for (ShipBatchResult.ItemError error : result.getErrors()) {
+            shipImport.reject(lines[error.getIndex()], error.getMessage());
+        }
+        shipImport.imported(result.getCreated().size());
+        chunk.clear();
+    }
+}
@@ -0,0 +1,267 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.repository.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of ship list pages and counts keyed on filter, order and page.
+ * Entries expire after a TTL and are dropped as soon as a committed write touches
+ * a ship the cached filter matches, before or after the change. While replicas may
+ * still lag behind a commit, loads are answered but not stored: one read from a
+ * replica could miss the write and would outlive it in the cache.
+ */
+@Component
+public class ShipQueryCache implements ShipChangeListener {
+
+    private ReadWriteRoutingDataSource routing;
+    private boolean enabled;
+    private int maxSize;
+    private long ttlMillis;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= maxSize)
+                return false;
+            evictions++;
+            return true;
+        }
+    };
+
+    //guarded by this, bumped on every write so that a load racing with it is not stored
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        if (dataSource instanceof ReadWriteRoutingDataSource)
+            this.routing = (ReadWriteRoutingDataSource) dataSource;
+    }
+
+    @Value("${cosmoport.cache.enabled:false}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Value("${cosmoport.cache.maxSize:1000}")
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Value("${cosmoport.cache.ttlSeconds:60}")
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    public Page<ShipView> findShips(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize,
+                                    Supplier<Page<ShipView>> loader) {
+        return get(new Key(filter, order, pageNumber, pageSize), loader);
+    }
+
+    public Long countShips(ShipFilter filter, Supplier<Long> loader) {
+        return get(new Key(filter, null, 0, 0), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> loader) {
+        if (!enabled)
+            return loader.get();
+
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits++;
+                    return (T) entry.value;
+                }
+                entries.remove(key);
+                expirations++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        //a later commit bumps the generation, so only the lag of earlier ones is checked
+        boolean store = routing == null || !routing.isReplicaLagging();
+        T value = loader.get();
+
+        synchronized (this) {
+            if (store && loadGeneration == generation)
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+        }
+        return value;
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        invalidate(key -> key.filter.matches(ship));
+    }
+
+    @Override
+    public void shipsCreated(List<Ship> ships) {
+        invalidate(key -> ships.stream().anyMatch(key.filter::matches));
+    }
+
+    @Override
+    public void shipUpdated(Ship before, Ship after) {
+        invalidate(key -> key.filter.matches(before) || key.filter.matches(after));
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        invalidate(key -> key.filter.matches(ship));
+    }
+
+    // counts only change when they filter on the rating, every page shows it
+    @Override
+    public void ratingsChanged(Map<Long, Double> ratings) {
+        invalidate(key -> key.order != null || key.filter.getMinRating() != null || key.filter.getMaxRating() != null);
+    }
+
+    @Override
+    public void shipsChanged() {
+        invalidate(key -> true);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    private synchronized void invalidate(Predicate<Key> affected) {
+        generation++;
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (affected.test(keys.next())) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        CacheStats stats = new CacheStats();
+        stats.enabled = enabled;
+        stats.size = entries.size();
+        stats.maxSize = maxSize;
+        stats.hits = hits;
+        stats.misses = misses;
+        stats.hitRatio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        stats.evictions = evictions;
+        stats.expirations = expirations;
+        stats.invalidations = invalidations;
+        return stats;
+    }
+
+    private static final class Key {
+
+        private final ShipFilter filter;
+        private final ShipOrder order;
+        private final int pageNumber;
+        private final int pageSize;
+
+        Key(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize) {
+            //copied, the filter is a mutable request binding
+            this.filter = new ShipFilter(filter);
+            this.order = order;
+            this.pageNumber = pageNumber;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return pageNumber == key.pageNumber
+                    && pageSize == key.pageSize
+                    && order == key.order
+                    && filter.equals(key.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, order, pageNumber, pageSize);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class CacheStats {
+        private boolean enabled;
+        private int size;
+        private int maxSize;
+        private long hits;
+        private long misses;
+        private double hitRatio;
+        private long evictions;
+        private long expirations;
+        private long invalidations;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRatio() {
+            return hitRatio;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+    }
+}
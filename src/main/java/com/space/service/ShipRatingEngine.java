@@ -0,0 +1,164 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rates ships without allocating: the production year comes from a table of year
+ * boundaries, rounding to 2 decimals is done on the exact value of the double.
+ * Results are the same as Calendar plus BigDecimal with HALF_UP.
+ *
+ * The table is built for the default time zone at construction, like
+ * Calendar.getInstance() it follows; dates outside it fall back to Calendar.
+ *
+ * Stored ratings do not follow a change of the formula or the reference year,
+ * {@link ShipRerater} recomputes them.
+ */
+@Component
+public class ShipRatingEngine {
+
+    static final int FIRST_YEAR = 2800;
+    static final int LAST_YEAR = 3019;
+
+    private static final int BULK_THRESHOLD = 4096;
+
+    // 2^27 + 1, splits a double into two halves whose products are exact
+    private static final double SPLITTER = 134217729.0;
+
+    // yearStarts[i] is the first millisecond of FIRST_YEAR + i, the last entry ends LAST_YEAR
+    private final long[] yearStarts = new long[LAST_YEAR - FIRST_YEAR + 2];
+
+    private int referenceYear = LAST_YEAR;
+
+    public ShipRatingEngine() {
+        Calendar cal = Calendar.getInstance();
+        for (int i = 0; i < yearStarts.length; i++) {
+            cal.clear();
+            cal.set(FIRST_YEAR + i, Calendar.JANUARY, 1);
+            yearStarts[i] = cal.getTimeInMillis();
+        }
+    }
+
+    @Value("${cosmoport.rating.referenceYear:3019}")
+    public void setReferenceYear(int referenceYear) {
+        if (referenceYear < LAST_YEAR)
+            throw new IllegalArgumentException("Reference year " + referenceYear + " is before the last production year " + LAST_YEAR);
+        this.referenceYear = referenceYear;
+    }
+
+    public int yearOf(Date date) {
+        long time = date.getTime();
+        if (time < yearStarts[0] || time >= yearStarts[yearStarts.length - 1]) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(date);
+            return cal.get(Calendar.YEAR);
+        }
+
+        int index = Arrays.binarySearch(yearStarts, time);
+        return FIRST_YEAR + (index >= 0 ? index : -index - 2);
+    }
+
+    public Double rate(Ship ship) {
+        return rate(ship.getSpeed(), ship.getUsed(), yearOf(ship.getProdDate()));
+    }
+
+    public double rate(double speed, boolean used, int year) {
+        return round2((80 * speed * (used ? 0.5 : 1)) / (referenceYear - year + 1));
+    }
+
+    /**
+     * Sets the rating of every ship in parallel on the common fork/join pool.
+     * Ships missing a rating input get a null rating.
+     */
+    public void rateAll(List<Ship> ships) {
+        if (ships.size() <= BULK_THRESHOLD) {
+            rateRange(ships, 0, ships.size());
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new RateTask(ships, 0, ships.size()));
+    }
+
+    private void rateRange(List<Ship> ships, int from, int to) {
+        for (int i = from; i < to; i++) {
+            Ship ship = ships.get(i);
+            if (ship.getSpeed() == null || ship.getUsed() == null || ship.getProdDate() == null)
+                ship.setRating(null);
+            else
+                ship.setRating(rate(ship));
+        }
+    }
+
+    /**
+     * Same as new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue().
+     */
+    static double round2(double value) {
+        if (value < 0)
+            return -round2(-value);
+        if (!(value < 1e13))
+            return value; //NaN, infinity, or no fraction left to round at 2 decimals
+
+        //the exact value of 100 * value is product + error
+        double product = value * 100;
+        double error = twoProductError(value, 100, product);
+
+        //HALF_UP: the result k satisfies k - 0.5 <= 100 * value < k + 0.5
+        long k = (long) Math.floor(product + 0.5);
+        while (difference(product, error, k - 0.5) < 0) {
+            k--;
+        }
+        while (difference(product, error, k + 0.5) >= 0) {
+            k++;
+        }
+        return k / 100.0;
+    }
+
+    // has the sign of (product + error) - bound, as product - bound is exact for the magnitudes rounded here
+    private static double difference(double product, double error, double bound) {
+        return (product - bound) + error;
+    }
+
+    // Dekker's two-product: a * b - product, exact when nothing overflows
+    private static double twoProductError(double a, double b, double product) {
+        double aSplit = a * SPLITTER;
+        double aHigh = aSplit - (aSplit - a);
+        double aLow = a - aHigh;
+        double bSplit = b * SPLITTER;
+        double bHigh = bSplit - (bSplit - b);
+        double bLow = b - bHigh;
+
+        return ((aHigh * bHigh - product) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+    }
+
+    private class RateTask extends RecursiveAction {
+
+        private final List<Ship> ships;
+        private final int from;
+        private final int to;
+
+        RateTask(List<Ship> ships, int from, int to) {
+            this.ships = ships;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_THRESHOLD) {
+                rateRange(ships, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RateTask(ships, from, middle), new RateTask(ships, middle, to));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.space.service;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShipRerate {
+
+    public enum State {
+        RUNNING, PAUSED, COMPLETED, FAILED
+    }
+
+    private final long id;
+    private final long fromId;
+    private final long maxId;
+    private final Date startedAt = new Date();
+
+    private final AtomicLong rowsScanned = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+
+    private volatile long lastId;
+    private volatile State state = State.RUNNING;
+    private volatile double progress;
+    private volatile double rowsPerSecond;
+    private volatile Date finishedAt;
+    private volatile String failure;
+
+    ShipRerate(long id, long fromId, long maxId) {
+        this.id = id;
+        this.fromId = fromId;
+        this.maxId = maxId;
+        this.lastId = fromId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getFromId() {
+        return fromId;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    // every ship with a smaller or equal id has been rated, a paused or failed run resumes after it
+    public long getLastId() {
+        return lastId;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned.get();
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated.get();
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    // share of the id range fromId..maxId seen at start that has been covered
+    public double getProgress() {
+        return progress;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    void batchDone(long lastId, int scanned, int updated) {
+        rowsScanned.addAndGet(scanned);
+        rowsUpdated.addAndGet(updated);
+        this.lastId = lastId;
+        progress = lastId >= maxId ? 1 : (double) (lastId - fromId) / (maxId - fromId);
+        measureRate(System.currentTimeMillis());
+    }
+
+    void complete() {
+        finish(State.COMPLETED);
+    }
+
+    void pause() {
+        finish(State.PAUSED);
+    }
+
+    void fail(String message) {
+        failure = message;
+        finish(State.FAILED);
+    }
+
+    private void finish(State state) {
+        finishedAt = new Date();
+        if (state == State.COMPLETED)
+            progress = 1;
+        measureRate(finishedAt.getTime());
+        this.state = state;
+    }
+
+    private void measureRate(long now) {
+        long millis = now - startedAt.getTime();
+        rowsPerSecond = millis > 0 ? rowsScanned.get() * 1000.0 / millis : 0;
+    }
+}
@@ -0,0 +1,248 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes the stored rating of every ship with the current {@link ShipRatingEngine},
+ * in id order and batchSize rows per transaction, at most maxRowsPerSecond rows.
+ *
+ * Batches are read without locks. A rating is written only if it changed and only
+ * while speed, isUsed and prodDate are still the values it was computed from, so a
+ * concurrent edit, which rates the ship itself, is never overwritten.
+ */
+@Component
+public class ShipRerater {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipRerater.class);
+
+    private static final String SELECT_BATCH = "select id, speed, isUsed, prodDate, rating from ship"
+            + " where id > ? and id <= ? order by id limit ?";
+
+    private static final String UPDATE_RATING = "update ship set rating = ?, version = version + 1"
+            + " where id = ? and speed = ? and isUsed = ? and prodDate = ?";
+
+    private final AtomicLong ids = new AtomicLong();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ship-rerater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Cache entityCache;
+    private ShipRatingEngine ratingEngine;
+    private ShipChangePublisher changePublisher;
+    private int batchSize;
+    private int maxRowsPerSecond;
+
+    private volatile ShipRerate current;
+    private volatile boolean pauseRequested;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityCache = entityManagerFactory.getCache();
+    }
+
+    @Autowired
+    public void setRatingEngine(ShipRatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    @Autowired
+    public void setChangePublisher(ShipChangePublisher changePublisher) {
+        this.changePublisher = changePublisher;
+    }
+
+    @Value("${cosmoport.rerate.batchSize:1000}")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Value("${cosmoport.rerate.maxRowsPerSecond:5000}")
+    public void setMaxRowsPerSecond(int maxRowsPerSecond) {
+        this.maxRowsPerSecond = maxRowsPerSecond;
+    }
+
+    /**
+     * Starts a run after fromId. Without fromId a paused or failed run is resumed
+     * after its last id, otherwise the whole table is rated. While a run is going
+     * on it is returned instead of starting another one.
+     */
+    public synchronized ShipRerate start(Long fromId) {
+        ShipRerate last = current;
+        if (last != null && last.getState() == ShipRerate.State.RUNNING)
+            return last;
+
+        long from = 0;
+        if (fromId != null)
+            from = fromId;
+        else if (last != null && last.getState() != ShipRerate.State.COMPLETED)
+            from = last.getLastId();
+
+        //ships created later are rated on insert by the same engine
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from ship", Long.class);
+
+        ShipRerate rerate = new ShipRerate(ids.incrementAndGet(), from, maxId == null ? 0 : maxId);
+        pauseRequested = false;
+        current = rerate;
+        executor.execute(() -> run(rerate));
+        return rerate;
+    }
+
+    /**
+     * Asks the running run to stop after its current batch.
+     */
+    public synchronized ShipRerate pause() {
+        ShipRerate last = current;
+        if (last != null && last.getState() == ShipRerate.State.RUNNING)
+            pauseRequested = true;
+        return last;
+    }
+
+    public ShipRerate current() {
+        return current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pauseRequested = true;
+        executor.shutdownNow();
+    }
+
+    private void run(ShipRerate rerate) {
+        log.info("Ship rerate {} started after id {} up to id {}", rerate.getId(), rerate.getFromId(), rerate.getMaxId());
+        long start = System.nanoTime();
+        long scanned = 0;
+        try {
+            long lastId = rerate.getFromId();
+            while (lastId < rerate.getMaxId()) {
+                if (pauseRequested) {
+                    rerate.pause();
+                    break;
+                }
+
+                List<RatingRow> rows = readBatch(lastId, rerate.getMaxId());
+                if (rows.isEmpty())
+                    break;
+
+                lastId = rows.get(rows.size() - 1).id;
+                rerate.batchDone(lastId, rows.size(), updateBatch(rows));
+                scanned += rows.size();
+                throttle(start, scanned);
+            }
+            if (rerate.getState() == ShipRerate.State.RUNNING)
+                rerate.complete();
+        } catch (InterruptedException e) {
+            rerate.pause();
+        } catch (RuntimeException e) {
+            log.warn("Ship rerate {} failed after id {}", rerate.getId(), rerate.getLastId(), e);
+            rerate.fail(e.getMessage());
+        }
+
+        log.info("Ship rerate {} {} at id {}: {} rows scanned, {} updated", rerate.getId(), rerate.getState(),
+                rerate.getLastId(), rerate.getRowsScanned(), rerate.getRowsUpdated());
+    }
+
+    private List<RatingRow> readBatch(long afterId, long maxId) {
+        return jdbcTemplate.query(SELECT_BATCH, (rs, rowNum) -> new RatingRow(
+                rs.getLong("id"),
+                rs.getObject("speed", Double.class),
+                rs.getObject("isUsed", Boolean.class),
+                rs.getTimestamp("prodDate"),
+                rs.getObject("rating", Double.class)), afterId, maxId, batchSize);
+    }
+
+    private int updateBatch(List<RatingRow> rows) {
+        List<Object[]> updates = new ArrayList<>();
+        for (RatingRow row : rows) {
+            //ships the online path would reject are left alone
+            if (row.speed == null || row.used == null || row.prodDate == null)
+                continue;
+
+            Double rating = ratingEngine.rate(row.speed, row.used, ratingEngine.yearOf(row.prodDate));
+            if (!Objects.equals(rating, row.rating))
+                updates.add(new Object[]{rating, row.id, row.speed, row.used, row.prodDate});
+        }
+        if (updates.isEmpty())
+            return 0;
+
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_RATING, updates));
+        //the statements bypass Hibernate, so the cached entities are dropped by hand
+        for (Object[] update : updates) {
+            entityCache.evict(Ship.class, update[1]);
+        }
+        Map<Long, Double> ratings = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO)
+                ratings.put((Long) updates.get(i)[1], (Double) updates.get(i)[0]);
+        }
+        //per batch rather than per run, so cached lists and their ETags do not lag behind a long run;
+        //names and planets are untouched, so the text index and the rest of the snapshot stay as they are
+        if (!ratings.isEmpty())
+            changePublisher.ratingsChanged(ratings);
+        return ratings.size();
+    }
+
+    // keeps the run at maxRowsPerSecond on average, leaving connections and IO to online traffic
+    private void throttle(long start, long scanned) throws InterruptedException {
+        if (maxRowsPerSecond <= 0)
+            return;
+
+        long dueNanos = scanned * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - start);
+        if (aheadNanos > 0)
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+    }
+
+    private static class RatingRow {
+
+        private final long id;
+        private final Double speed;
+        private final Boolean used;
+        private final Timestamp prodDate;
+        private final Double rating;
+
+        RatingRow(long id, Double speed, Boolean used, Timestamp prodDate, Double rating) {
+            this.id = id;
+            this.speed = speed;
+            this.used = used;
+            this.prodDate = prodDate;
+            this.rating = rating;
+        }
+    }
+}
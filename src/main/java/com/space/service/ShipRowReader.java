@@ -0,0 +1,18 @@
+package com.space.service;
+
+import com.space.model.Ship;
+
+import java.io.IOException;
+
+/**
+ * Incremental source of ships for {@link ShipImporter}. A row that cannot be parsed
+ * is reported with a {@link com.space.BadRequestException}, the next call moves on.
+ */
+public interface ShipRowReader {
+
+    // null at the end of input
+    Ship next() throws IOException;
+
+    // 1-based line of the row returned or rejected last
+    long getLine();
+}
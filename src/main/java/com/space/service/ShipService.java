@@ -1,29 +1,50 @@
 package com.space.service;
 
+import com.space.controller.ShipOrder;
 import com.space.model.Ship;
+import com.space.model.ShipView;
 import com.space.model.ShipType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShipService {
 
-    Page<Ship> gelAllShips(Specification<Ship> specification, Pageable sortedByName);
+    Page<ShipView> findShips(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize);
 
-    List<Ship> gelAllShips(Specification<Ship> specification);
+    Long countShips(ShipFilter filter);
+
+    String getTableVersion();
+
+    Page<ShipView> gelAllShips(Specification<Ship> specification, Pageable sortedByName);
+
+    ShipSlice seekShips(Specification<Ship> specification, ShipOrder order, String cursor, Integer pageSize);
+
+    Long countShips(Specification<Ship> specification);
+
+    void exportShips(ShipFilter filter, ShipOrder order, Consumer<ShipView> consumer);
 
     Ship createShip(Ship requestShip);
 
+    ShipBatchResult createShips(List<Ship> ships);
+
     Ship getShip(Long id);
 
-    Ship editShip(Long id, Ship ship);
+    Ship editShip(Long id, Ship ship, Long expectedVersion);
 
     void deleteById(Long id);
 
+    Long deleteShips(ShipFilter filter);
+
+    Long updateShips(ShipFilter filter, Ship values);
+
     Long checkAndParseId(String id);
 
+    Specification<Ship> filterBy(ShipFilter filter);
+
     Specification<Ship> filterByPlanet(String planet);
 
     Specification<Ship> filterByName(String name);
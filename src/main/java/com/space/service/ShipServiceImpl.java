@@ -1,47 +1,226 @@
 package com.space.service;
 
 import com.space.BadRequestException;
+import com.space.ShipConflictException;
 import com.space.ShipNotFoundException;
+import com.space.controller.ShipOrder;
 import com.space.model.Ship;
+import com.space.model.ShipView;
 import com.space.model.ShipType;
 import com.space.repository.ShipRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Calendar;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class ShipServiceImpl implements ShipService {
 
+    private static final int EDIT_ATTEMPTS = 5;
+
+    //stands for a rating input the bulk update overwrites, unlike null which is a NULL column
+    private static final Object OVERWRITTEN = new Object();
+
     private ShipRepository shipRepository;
+    private ShipTextIndex textIndex;
+    private ShipChangePublisher changePublisher;
+    private ShipSnapshot snapshot;
+    private ShipQueryCache queryCache;
+    private ShipRatingEngine ratingEngine;
+    private Cache entityCache;
+    private TransactionTemplate transactionTemplate;
+    private int maxBatchSize;
+    private int jdbcBatchSize;
+    private int maxRatingGroups;
 
     @Autowired
     public void setShipRepository(ShipRepository shipRepository) {
         this.shipRepository = shipRepository;
     }
 
+    @Autowired
+    public void setTextIndex(ShipTextIndex textIndex) {
+        this.textIndex = textIndex;
+    }
+
+    @Autowired
+    public void setSnapshot(ShipSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Autowired
+    public void setRatingEngine(ShipRatingEngine ratingEngine) {
+        this.ratingEngine = ratingEngine;
+    }
+
+    @Autowired
+    public void setQueryCache(ShipQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityCache = entityManagerFactory.getCache();
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Value("${cosmoport.batch.maxSize:10000}")
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Value("${cosmoport.batch.jdbcBatchSize:500}")
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Value("${cosmoport.bulk.maxRatingGroups:100}")
+    public void setMaxRatingGroups(int maxRatingGroups) {
+        this.maxRatingGroups = maxRatingGroups;
+    }
+
+    @Autowired
+    public void setChangePublisher(ShipChangePublisher changePublisher) {
+        this.changePublisher = changePublisher;
+    }
+
+    @Override
+    public Page<ShipView> findShips(ShipFilter filter, ShipOrder order, Integer pageNumber, Integer pageSize) {
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
+
+        return queryCache.findShips(filter, order, pageNumber, pageSize, () -> {
+            if (snapshot.canEvaluate(filter))
+                return snapshot.find(filter, order, pageable);
+
+            return gelAllShips(filterBy(filter), pageable);
+        });
+    }
+
+    @Override
+    public Long countShips(ShipFilter filter) {
+        return queryCache.countShips(filter, () -> {
+            if (snapshot.canEvaluate(filter))
+                return snapshot.count(filter);
+
+            return countShips(filterBy(filter));
+        });
+    }
+
     @Override
-    public Page<Ship> gelAllShips(Specification<Ship> specification, Pageable sortedByName) {
-        return shipRepository.findAll(specification, sortedByName);
+    public String getTableVersion() {
+        return changePublisher.getTableVersion();
     }
 
     @Override
-    public List<Ship> gelAllShips(Specification<Ship> specification) {
-        return shipRepository.findAll(specification);
+    public Page<ShipView> gelAllShips(Specification<Ship> specification, Pageable sortedByName) {
+        return shipRepository.findPage(specification, sortedByName);
+    }
+
+    @Override
+    public ShipSlice seekShips(Specification<Ship> specification, ShipOrder order, String cursor, Integer pageSize) {
+        if (pageSize < 1)
+            throw new BadRequestException("Incorrect pageSize");
+
+        Specification<Ship> seek = specification;
+        if (!cursor.isEmpty())
+            seek = specification.and(ShipCursor.decode(cursor, order).toSpecification());
+
+        Sort sort = order == ShipOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName()).and(Sort.by("id"));
+
+        //fetch one extra row to know whether there is a next page
+        List<ShipView> ships = shipRepository.findFirst(seek, sort, pageSize + 1);
+        if (ships.size() <= pageSize)
+            return new ShipSlice(ships, null);
+
+        ships = new ArrayList<>(ships.subList(0, pageSize));
+        return new ShipSlice(ships, ShipCursor.after(order, ships.get(pageSize - 1)).encode());
+    }
+
+    @Override
+    public Long countShips(Specification<Ship> specification) {
+        return shipRepository.count(specification);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportShips(ShipFilter filter, ShipOrder order, Consumer<ShipView> consumer) {
+        Sort sort = order == ShipOrder.ID ? Sort.by("id") : Sort.by(order.getFieldName()).and(Sort.by("id"));
+
+        //Integer.MIN_VALUE makes the MySQL driver stream rows instead of reading the whole result
+        shipRepository.scroll(filterBy(filter), sort, Integer.MIN_VALUE, consumer);
     }
 
     @Override
     public Ship createShip(Ship ship) {
+        prepareNewShip(ship);
+        ship.setRating(ratingEngine.rate(ship));
 
+        Ship savedShip = shipRepository.saveAndFlush(ship);
+        changePublisher.shipCreated(savedShip);
+
+        return savedShip;
+    }
+
+    @Override
+    @Transactional
+    public ShipBatchResult createShips(List<Ship> ships) {
+        if (ships == null || ships.size() > maxBatchSize)
+            throw new BadRequestException("Batch must contain at most " + maxBatchSize + " ships");
+
+        ShipBatchResult result = new ShipBatchResult();
+        List<Ship> valid = new ArrayList<>(ships.size());
+        for (int i = 0; i < ships.size(); i++) {
+            Ship ship = ships.get(i);
+            try {
+                if (ship == null)
+                    throw new BadRequestException("Ship is null");
+                prepareNewShip(ship);
+                valid.add(ship);
+            } catch (BadRequestException e) {
+                result.addError(i, e.getMessage());
+            }
+        }
+
+        ratingEngine.rateAll(valid);
+        shipRepository.insertAll(valid, jdbcBatchSize);
+        if (!valid.isEmpty())
+            changePublisher.shipsCreated(valid);
+
+        result.getCreated().addAll(valid);
+        return result;
+    }
+
+    private void prepareNewShip(Ship ship) {
         if (ship.getName() == null
                 || ship.getPlanet() == null
                 || ship.getShipType() == null
@@ -54,65 +233,263 @@ public class ShipServiceImpl implements ShipService {
 
         if (ship.getUsed() == null)
             ship.setUsed(false);
-
-        Double raiting = calculateRating(ship);
-        ship.setRating(raiting);
-
-        return shipRepository.saveAndFlush(ship);
     }
 
+    // served from the second-level cache when enabled
     @Override
     public Ship getShip(Long id) {
-        if (!shipRepository.existsById(id))
-            throw new ShipNotFoundException("Ship not found");
-
-        return shipRepository.findById(id).get();
+        return shipRepository.findById(id)
+                .orElseThrow(() -> new ShipNotFoundException("Ship not found"));
     }
 
+    /**
+     * Reads the ship once and writes only the changed columns with a single UPDATE.
+     * With an expected version the UPDATE matches only that version. Without one it
+     * matches as long as the rating inputs the new rating was computed from are
+     * unchanged, so concurrent edits of other columns all survive; a lost race is
+     * retried on the fresh row a few times.
+     */
     @Override
-    public Ship editShip(Long id, Ship ship) {
+    public Ship editShip(Long id, Ship ship, Long expectedVersion) {
         checkShipParams(ship);
 
-        if (!shipRepository.existsById(id))
-            throw new ShipNotFoundException("Ship not found");
+        for (int attempt = 1; ; attempt++) {
+            Ship oldShip = shipRepository.findCurrentById(id)
+                    .orElseThrow(() -> new ShipNotFoundException("Ship not found"));
+            if (expectedVersion != null && !expectedVersion.equals(oldShip.getVersion()))
+                throw new ShipConflictException("Ship was modified");
+
+            Ship editedShip = new Ship(oldShip);
+
+            if (ship.getName() != null)
+                editedShip.setName(ship.getName());
 
-        Ship editedShip = shipRepository.findById(id).get();
+            if (ship.getPlanet() != null)
+                editedShip.setPlanet(ship.getPlanet());
 
-        if (ship.getName() != null)
-            editedShip.setName(ship.getName());
+            if (ship.getShipType() != null)
+                editedShip.setShipType(ship.getShipType());
 
-        if (ship.getPlanet() != null)
-            editedShip.setPlanet(ship.getPlanet());
+            if (ship.getProdDate() != null)
+                editedShip.setProdDate(ship.getProdDate());
 
-        if (ship.getShipType() != null)
-            editedShip.setShipType(ship.getShipType());
+            if (ship.getSpeed() != null)
+                editedShip.setSpeed(ship.getSpeed());
 
-        if (ship.getProdDate() != null)
-            editedShip.setProdDate(ship.getProdDate());
+            if (ship.getUsed() != null)
+                editedShip.setUsed(ship.getUsed());
 
-        if (ship.getSpeed() != null)
-            editedShip.setSpeed(ship.getSpeed());
+            if (ship.getCrewSize() != null)
+                editedShip.setCrewSize(ship.getCrewSize());
 
-        if (ship.getUsed() != null)
-            editedShip.setUsed(ship.getUsed());
+            Double rating = ratingEngine.rate(editedShip);
+            editedShip.setRating(rating);
 
-        if (ship.getCrewSize() != null)
-            editedShip.setCrewSize(ship.getCrewSize());
+            Ship changes = changedFields(oldShip, editedShip);
+            if (changes == null)
+                return oldShip;
 
-        Double rating = calculateRating(editedShip);
-        editedShip.setRating(rating);
+            Ship expected = editCondition(oldShip, changes, expectedVersion);
+            editedShip.setVersion(oldShip.getVersion() + 1);
+            boolean updated = transactionTemplate.execute(status -> {
+                if (shipRepository.updateShip(changes, expected) != 1)
+                    return false;
+                evictShip(id);
+                changePublisher.shipUpdated(oldShip, editedShip);
+                return true;
+            });
+            if (updated)
+                return editedShip;
+
+            if (expectedVersion != null || attempt == EDIT_ATTEMPTS)
+                throw new ShipConflictException("Ship was modified concurrently");
+        }
+    }
+
+    // the statements bypass Hibernate, so the cached entity is dropped by hand, and again after
+    // the commit: a reader of the old row may have put it back before the new one was visible
+    private void evictShip(Long id) {
+        entityCache.evict(Ship.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    entityCache.evict(Ship.class, id);
+                }
+            });
+        }
+    }
+
+    // the columns the UPDATE has to find unchanged
+    private static Ship editCondition(Ship oldShip, Ship changes, Long expectedVersion) {
+        boolean rated = changes.getRating() != null
+                || changes.getSpeed() != null || changes.getUsed() != null || changes.getProdDate() != null;
+
+        Ship expected = new Ship();
+        expected.setId(oldShip.getId());
+        if (expectedVersion != null) {
+            expected.setVersion(oldShip.getVersion());
+        } else if (rated) {
+            //the new rating holds while the inputs this edit does not overwrite are unchanged
+            if (changes.getSpeed() == null)
+                expected.setSpeed(oldShip.getSpeed());
+            if (changes.getUsed() == null)
+                expected.setUsed(oldShip.getUsed());
+            if (changes.getProdDate() == null)
+                expected.setProdDate(oldShip.getProdDate());
+        }
 
-        return shipRepository.save(editedShip);
+        return expected;
     }
 
+    // the fields of after that differ from before, or null if none does
+    private static Ship changedFields(Ship before, Ship after) {
+        Ship changes = new Ship();
+        changes.setId(before.getId());
+        boolean changed = false;
+
+        if (!Objects.equals(before.getName(), after.getName())) {
+            changes.setName(after.getName());
+            changed = true;
+        }
+        if (!Objects.equals(before.getPlanet(), after.getPlanet())) {
+            changes.setPlanet(after.getPlanet());
+            changed = true;
+        }
+        if (before.getShipType() != after.getShipType()) {
+            changes.setShipType(after.getShipType());
+            changed = true;
+        }
+        //the loaded date is a java.sql.Timestamp, which never equals a plain Date
+        if (!Objects.equals(before.getProdDate() == null ? null : before.getProdDate().getTime(),
+                after.getProdDate() == null ? null : after.getProdDate().getTime())) {
+            changes.setProdDate(after.getProdDate());
+            changed = true;
+        }
+        if (!Objects.equals(before.getUsed(), after.getUsed())) {
+            changes.setUsed(after.getUsed());
+            changed = true;
+        }
+        if (!Objects.equals(before.getSpeed(), after.getSpeed())) {
+            changes.setSpeed(after.getSpeed());
+            changed = true;
+        }
+        if (!Objects.equals(before.getCrewSize(), after.getCrewSize())) {
+            changes.setCrewSize(after.getCrewSize());
+            changed = true;
+        }
+        if (!Objects.equals(before.getRating(), after.getRating())) {
+            changes.setRating(after.getRating());
+            changed = true;
+        }
+
+        return changed ? changes : null;
+    }
+
+    //the row is read from the primary for the change event; a concurrent delete leaves nothing to delete
     @Override
+    @Transactional
     public void deleteById(Long id) {
-        if (shipRepository.existsById(id))
-            shipRepository.deleteById(id);
-        else throw new ShipNotFoundException("Ship not found");
+        Ship ship = shipRepository.findCurrentById(id)
+                .orElseThrow(() -> new ShipNotFoundException("Ship not found"));
+
+        if (shipRepository.deleteShip(id) == 0)
+            throw new ShipNotFoundException("Ship not found");
+        evictShip(id);
+        changePublisher.shipDeleted(ship);
     }
 
-    private void checkShipParams(Ship ship) {
+    @Override
+    @Transactional
+    public Long deleteShips(ShipFilter filter) {
+        if (filter.isEmpty())
+            throw new BadRequestException("Filter is empty");
+
+        long deleted = shipRepository.deleteAll(filterBy(filter));
+        changePublisher.shipsChanged();
+
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public Long updateShips(ShipFilter filter, Ship values) {
+        if (filter.isEmpty())
+            throw new BadRequestException("Filter is empty");
+
+        checkShipParams(values);
+
+        Ship changes = new Ship(values);
+        changes.setId(null);
+        changes.setRating(null);
+        if (changes.getName() == null
+                && changes.getPlanet() == null
+                && changes.getShipType() == null
+                && changes.getProdDate() == null
+                && changes.getUsed() == null
+                && changes.getSpeed() == null
+                && changes.getCrewSize() == null)
+            throw new BadRequestException("Nothing to update");
+
+        Specification<Ship> specification = filterBy(filter);
+        long updated = 0;
+
+        if (changes.getSpeed() == null && changes.getUsed() == null && changes.getProdDate() == null) {
+            updated = shipRepository.updateAll(specification, changes);
+        } else {
+            //one statement per distinct rating, each restricted to the rating inputs that are not overwritten
+            Map<List<Object>, Double> ratings = new HashMap<>();
+            for (Object[] inputs : shipRepository.findRatingInputs(specification)) {
+                List<Object> group = Arrays.asList(
+                        changes.getSpeed() == null ? inputs[0] : OVERWRITTEN,
+                        changes.getUsed() == null ? inputs[1] : OVERWRITTEN,
+                        changes.getProdDate() == null ? inputs[2] : OVERWRITTEN);
+                if (ratings.containsKey(group))
+                    continue;
+                //each group is another statement re-applying the filter while the rows stay locked
+                if (ratings.size() == maxRatingGroups)
+                    throw new BadRequestException("Update gives more than " + maxRatingGroups + " distinct ratings");
+
+                Double speed = changes.getSpeed() == null ? (Double) inputs[0] : changes.getSpeed();
+                Boolean used = changes.getUsed() == null ? (Boolean) inputs[1] : changes.getUsed();
+                Integer year = changes.getProdDate() == null ? (Integer) inputs[2] : ratingEngine.yearOf(changes.getProdDate());
+                ratings.put(group, speed == null || used == null || year == null ? null : ratingEngine.rate(speed, used, year));
+            }
+
+            for (Map.Entry<List<Object>, Double> rating : ratings.entrySet()) {
+                Ship groupChanges = new Ship(changes);
+                groupChanges.setRating(rating.getValue());
+                //a group missing a rating input has no rating, set to NULL rather than left as it was
+                updated += shipRepository.updateAll(specification.and(ratingGroup(rating.getKey())), groupChanges, true);
+            }
+        }
+
+        changePublisher.shipsChanged();
+
+        return updated;
+    }
+
+    // every row matches exactly one group, a NULL input matches only NULL
+    private Specification<Ship> ratingGroup(List<Object> group) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            addGroupPredicate(predicates, cb, root.get("speed"), group.get(0));
+            addGroupPredicate(predicates, cb, root.get("isUsed"), group.get(1));
+            addGroupPredicate(predicates, cb, cb.function("year", Integer.class, root.get("prodDate")), group.get(2));
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static void addGroupPredicate(List<Predicate> predicates, CriteriaBuilder cb, Expression<?> input, Object value) {
+        if (value == OVERWRITTEN)
+            return;
+
+        predicates.add(value == null ? cb.isNull(input) : cb.equal(input, value));
+    }
+
+    //package-private for the benchmarks in src/jmh
+    void checkShipParams(Ship ship) {
 
         if (ship.getName() != null && (ship.getName().length() < 1 || ship.getName().length() > 50))
             throw new BadRequestException("Incorrect Ship.name");
@@ -127,9 +504,8 @@ public class ShipServiceImpl implements ShipService {
             throw new BadRequestException("Incorrect Ship.speed");
 
         if (ship.getProdDate() != null) {
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(ship.getProdDate());
-            if (cal.get(Calendar.YEAR) < 2800 || cal.get(Calendar.YEAR) > 3019)
+            int year = ratingEngine.yearOf(ship.getProdDate());
+            if (year < 2800 || year > 3019)
                 throw new BadRequestException("Incorrect Ship.date");
         }
     }
@@ -147,27 +523,45 @@ public class ShipServiceImpl implements ShipService {
         }
     }
 
-    private Double calculateRating(Ship ship) {
-
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(ship.getProdDate());
-        int year = cal.get(Calendar.YEAR);
-
-        //calculate rating
-        BigDecimal raiting = new BigDecimal((80 * ship.getSpeed() * (ship.getUsed() ? 0.5 : 1)) / (3019 - year + 1));
-        //round rating to 2 decimal places
-        raiting = raiting.setScale(2, RoundingMode.HALF_UP);
-        return raiting.doubleValue();
+    @Override
+    public Specification<Ship> filterBy(ShipFilter filter) {
+        return Specification.where(filterByName(filter.getName()))
+                .and(filterByPlanet(filter.getPlanet()))
+                .and(filterByShipType(filter.getShipType()))
+                .and(filterByDate(filter.getAfter(), filter.getBefore()))
+                .and(filterByUsage(filter.getIsUsed()))
+                .and(filterBySpeed(filter.getMinSpeed(), filter.getMaxSpeed()))
+                .and(filterByCrewSize(filter.getMinCrewSize(), filter.getMaxCrewSize()))
+                .and(filterByRating(filter.getMinRating(), filter.getMaxRating()));
     }
 
     @Override
     public Specification<Ship> filterByName(String name) {
-        return (root, query, cb) -> name == null ? null : cb.like(root.get("name"), "%" + name + "%");
+        return filterBySubstring(ShipTextIndex.Field.NAME, "name", name);
     }
 
     @Override
     public Specification<Ship> filterByPlanet(String planet) {
-        return (root, query, cb) -> planet == null ? null : cb.like(root.get("planet"), "%" + planet + "%");
+        return filterBySubstring(ShipTextIndex.Field.PLANET, "planet", planet);
+    }
+
+    private Specification<Ship> filterBySubstring(ShipTextIndex.Field field, String attribute, String substring) {
+        if (substring == null)
+            return (root, query, cb) -> null;
+
+        //resolved once here, toPredicate runs for both the page and the count query
+        Set<Long> candidates = textIndex.findCandidates(field, substring);
+
+        return (root, query, cb) -> {
+            Predicate like = cb.like(root.get(attribute), "%" + substring + "%");
+            if (candidates == null)
+                return like;
+            //only empty when the query is ASCII and no ship with non-ASCII text could match it
+            if (candidates.isEmpty())
+                return cb.disjunction();
+
+            return cb.and(root.get("id").in(candidates), like);
+        };
     }
 
     @Override
@@ -0,0 +1,28 @@
+package com.space.service;
+
+import com.space.model.ShipView;
+
+import java.util.List;
+
+public class ShipSlice {
+
+    private List<ShipView> ships;
+    private String nextCursor;
+
+    public ShipSlice(List<ShipView> ships, String nextCursor) {
+        this.ships = ships;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ShipView> getShips() {
+        return ships;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,130 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import com.space.model.ShipType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional in-process read model of the ship table. Readers work lock-free on the
+ * current immutable {@link ShipColumns}, writers build a new version and swap it in.
+ */
+@Component
+public class ShipSnapshot implements ShipChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipSnapshot.class);
+
+    private static final String SELECT_SHIPS =
+            "select id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating from ship order by id";
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean enabled;
+
+    private volatile ShipColumns columns;
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Value("${cosmoport.snapshot.enabled:false}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public synchronized void reload() {
+        if (!enabled)
+            return;
+
+        long start = System.currentTimeMillis();
+        ShipColumns.Builder builder = new ShipColumns.Builder(1024);
+        jdbcTemplate.query(SELECT_SHIPS, rs -> {
+            Ship ship = new Ship();
+            ship.setId(rs.getLong("id"));
+            ship.setName(rs.getString("name"));
+            ship.setPlanet(rs.getString("planet"));
+            String shipType = rs.getString("shipType");
+            ship.setShipType(shipType == null ? null : ShipType.valueOf(shipType));
+            Timestamp prodDate = rs.getTimestamp("prodDate");
+            ship.setProdDate(prodDate == null ? null : new java.util.Date(prodDate.getTime()));
+            ship.setUsed(rs.getObject("isUsed", Boolean.class));
+            ship.setSpeed(rs.getObject("speed", Double.class));
+            ship.setCrewSize(rs.getObject("crewSize", Integer.class));
+            ship.setRating(rs.getObject("rating", Double.class));
+            builder.add(ship);
+        });
+        columns = builder.build();
+
+        log.info("Ship snapshot loaded {} ships in {} ms", columns.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The snapshot mirrors LIKE only for plain substrings, filters with wildcards go to the database.
+     */
+    public boolean canEvaluate(ShipFilter filter) {
+        return enabled && columns != null && isPlain(filter.getName()) && isPlain(filter.getPlanet());
+    }
+
+    public long count(ShipFilter filter) {
+        return columns.count(filter);
+    }
+
+    public Page<ShipView> find(ShipFilter filter, ShipOrder order, Pageable pageable) {
+        return columns.find(filter, order, pageable);
+    }
+
+    @Override
+    public synchronized void shipCreated(Ship ship) {
+        if (columns != null)
+            columns = columns.with(ship);
+    }
+
+    @Override
+    public synchronized void shipsCreated(List<Ship> ships) {
+        if (columns != null)
+            columns = columns.withAll(ships);
+    }
+
+    @Override
+    public synchronized void shipUpdated(Ship before, Ship after) {
+        if (columns != null)
+            columns = columns.with(after);
+    }
+
+    @Override
+    public synchronized void shipDeleted(Ship ship) {
+        if (columns != null)
+            columns = columns.without(ship.getId());
+    }
+
+    @Override
+    public synchronized void ratingsChanged(Map<Long, Double> ratings) {
+        if (columns != null)
+            columns = columns.withRatings(ratings);
+    }
+
+    @Override
+    public void shipsChanged() {
+        reload();
+    }
+
+    private static boolean isPlain(String substring) {
+        return substring == null
+                || (substring.indexOf('%') < 0 && substring.indexOf('_') < 0 && substring.indexOf('\\') < 0);
+    }
+}
@@ -0,0 +1,261 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over Ship.name and Ship.planet. It narrows substring filters down
+ * to candidate ids, the LIKE predicate still decides the exact match. Only ASCII is
+ * folded the way the collation does it: non-ASCII queries are not narrowed, and
+ * ships with non-ASCII text are candidates for every query.
+ */
+@Component
+public class ShipTextIndex implements ShipChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipTextIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    public enum Field {
+        NAME, PLANET
+    }
+
+    private final Map<Field, FieldIndex> indexes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean enabled;
+    private int maxCandidates;
+
+    public ShipTextIndex() {
+        for (Field field : Field.values()) {
+            indexes.put(field, new FieldIndex());
+        }
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Value("${cosmoport.textIndex.enabled:false}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Value("${cosmoport.textIndex.maxCandidates:1000}")
+    public void setMaxCandidates(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled)
+            return;
+
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            indexes.values().forEach(FieldIndex::clear);
+            jdbcTemplate.query("select id, name, planet from ship", rs -> {
+                long id = rs.getLong(1);
+                indexes.get(Field.NAME).add(id, rs.getString(2));
+                indexes.get(Field.PLANET).add(id, rs.getString(3));
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Ship text index built for {} ships in {} ms", indexes.get(Field.NAME).size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Returns ids of ships whose field may contain the given substring, or null
+     * when the index cannot narrow the search (disabled, too short a query,
+     * LIKE wildcards, non-ASCII characters or too many candidates).
+     */
+    public Set<Long> findCandidates(Field field, String substring) {
+        if (!enabled || substring.length() < 3 || hasWildcards(substring) || !isAscii(substring))
+            return null;
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = indexes.get(field).find(normalize(substring));
+            return candidates.size() > maxCandidates ? null : candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipCreated(Ship ship) {
+        update(ship);
+    }
+
+    @Override
+    public void shipsCreated(List<Ship> ships) {
+        if (!enabled)
+            return;
+
+        lock.writeLock().lock();
+        try {
+            ships.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipUpdated(Ship before, Ship after) {
+        update(after);
+    }
+
+    @Override
+    public void shipDeleted(Ship ship) {
+        if (!enabled)
+            return;
+
+        lock.writeLock().lock();
+        try {
+            indexes.values().forEach(index -> index.remove(ship.getId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void shipsChanged() {
+        rebuild();
+    }
+
+    private void update(Ship ship) {
+        if (!enabled)
+            return;
+
+        lock.writeLock().lock();
+        try {
+            index(ship);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the caller holds the write lock
+    private void index(Ship ship) {
+        indexes.get(Field.NAME).remove(ship.getId());
+        indexes.get(Field.NAME).add(ship.getId(), ship.getName());
+        indexes.get(Field.PLANET).remove(ship.getId());
+        indexes.get(Field.PLANET).add(ship.getId(), ship.getPlanet());
+    }
+
+    private static boolean hasWildcards(String substring) {
+        return substring.indexOf('%') >= 0 || substring.indexOf('_') >= 0 || substring.indexOf('\\') >= 0;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F)
+                return false;
+        }
+        return true;
+    }
+
+    // close to the case and accent insensitive utf8_general_ci collation used by LIKE
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    private static class FieldIndex {
+
+        private final Map<Long, Set<Long>> postings = new HashMap<>();
+        private final Map<Long, String> texts = new HashMap<>();
+        //the collation may match these to ASCII queries in ways normalize does not, e.g. ß to s
+        private final Set<Long> unfolded = new HashSet<>();
+
+        void add(long id, String text) {
+            if (text == null)
+                return;
+            if (!isAscii(text)) {
+                unfolded.add(id);
+                return;
+            }
+
+            String normalized = normalize(text);
+            texts.put(id, normalized);
+            for (int i = 0; i + 3 <= normalized.length(); i++) {
+                postings.computeIfAbsent(trigram(normalized, i), k -> new HashSet<>()).add(id);
+            }
+        }
+
+        void remove(long id) {
+            unfolded.remove(id);
+            String normalized = texts.remove(id);
+            if (normalized == null)
+                return;
+
+            for (int i = 0; i + 3 <= normalized.length(); i++) {
+                long gram = trigram(normalized, i);
+                Set<Long> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty())
+                        postings.remove(gram);
+                }
+            }
+        }
+
+        Set<Long> find(String normalized) {
+            //start from the rarest trigram, so the intersection only shrinks
+            Set<Long> smallest = null;
+            for (int i = 0; i + 3 <= normalized.length(); i++) {
+                Set<Long> ids = postings.get(trigram(normalized, i));
+                if (ids == null)
+                    return new HashSet<>(unfolded);
+                if (smallest == null || ids.size() < smallest.size())
+                    smallest = ids;
+            }
+
+            Set<Long> result = new HashSet<>(smallest);
+            for (int i = 0; i + 3 <= normalized.length() && !result.isEmpty(); i++) {
+                Set<Long> ids = postings.get(trigram(normalized, i));
+                if (ids != smallest)
+                    result.retainAll(ids);
+            }
+            result.addAll(unfolded);
+            return result;
+        }
+
+        int size() {
+            return texts.size() + unfolded.size();
+        }
+
+        void clear() {
+            postings.clear();
+            texts.clear();
+            unfolded.clear();
+        }
+    }
+}
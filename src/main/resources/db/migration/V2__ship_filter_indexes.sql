@@ -0,0 +1,13 @@
+-- InnoDB appends the primary key to every secondary index, so each of these also
+-- serves the "order by <column>, id" of keyset pages
+
+-- range filters, and ShipOrder sorts when no other filter narrows the table
+CREATE INDEX ship_speed ON ship (speed);
+CREATE INDEX ship_prod_date ON ship (prodDate);
+CREATE INDEX ship_rating ON ship (rating);
+CREATE INDEX ship_crew_size ON ship (crewSize);
+
+-- shipType and isUsed equality filters followed by a range filter or sort on the last column
+CREATE INDEX ship_type_used_speed ON ship (shipType, isUsed, speed);
+CREATE INDEX ship_type_used_prod_date ON ship (shipType, isUsed, prodDate);
+CREATE INDEX ship_type_used_rating ON ship (shipType, isUsed, rating);
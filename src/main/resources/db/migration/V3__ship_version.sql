@@ -0,0 +1,3 @@
+-- bumped by every edit, so an edit can be made conditional on the row it read
+ALTER TABLE ship
+    ADD COLUMN version BIGINT(20) NOT NULL DEFAULT 0;
@@ -0,0 +1,202 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {
+        "cosmoport.admission.initialLimit=2",
+        "cosmoport.admission.minLimit=1",
+        "cosmoport.admission.maxLimit=2",
+        "cosmoport.admission.streamLimit=3",
+        "cosmoport.admission.targetLatencyMs=200"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class AdmissionControlTest {
+
+    private WebApplicationContext context;
+    private AdmissionFilter admissionFilter;
+    private ShipRequestExecutor executor;
+    private MockMvc mockMvc;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(admissionFilter).build();
+    }
+
+    @After
+    public void releaseThreads() {
+        release.countDown();
+    }
+
+    //test1
+    @Test
+    public void excessRequestsRejectedTest() throws Exception {
+        JsonNode before = limiterStats("COUNT");
+        blockThreads();
+
+        List<MvcResult> inFlight = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            inFlight.add(mockMvc.perform(get("/rest/ships/count"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+        mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        //other endpoint classes have limits of their own
+        inFlight.add(mockMvc.perform(get("/rest/ships"))
+                .andExpect(request().asyncStarted())
+                .andReturn());
+
+        JsonNode stats = limiterStats("COUNT");
+        assertEquals("Должно выполняться два запроса.", 2, stats.get("inFlight").asInt());
+        assertEquals("Лишний запрос должен быть отклонён.", 1L,
+                stats.get("rejected").asLong() - before.get("rejected").asLong());
+
+        release.countDown();
+        for (MvcResult result : inFlight) {
+            result.getAsyncResult(10000);
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals("Завершённые запросы должны освобождать места.", 0, limiterStats("COUNT").get("inFlight").asInt());
+        assertEquals("Завершённые запросы должны освобождать места.", 0, limiterStats("LIST").get("inFlight").asInt());
+        performAsync(mockMvc, get("/rest/ships/count"))
+                .andExpect(status().isOk());
+    }
+
+    //test2
+    @Test
+    public void slowRequestsLowerLimitTest() throws Exception {
+        blockThreads();
+
+        MvcResult slow = mockMvc.perform(delete("/rest/ships/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Thread.sleep(300);
+        release.countDown();
+        slow.getAsyncResult(10000);
+        mockMvc.perform(asyncDispatch(slow))
+                .andExpect(status().isOk());
+
+        JsonNode stats = limiterStats("WRITE");
+        assertEquals("Медленный запрос должен снижать предел.", 1, stats.get("limit").asInt());
+        assertTrue("Задержка должна учитываться.", stats.get("avgLatencyMicros").asLong() >= 300000);
+    }
+
+    //test3
+    @Test
+    public void backgroundJobsNotLimitedTest() throws Exception {
+        long admitted = limiterStats("LIST").get("admitted").asLong();
+        for (int i = 0; i < 5; i++) {
+            performAsync(mockMvc, get("/rest/ships/rerate"))
+                    .andExpect(status().isOk());
+        }
+        assertTrue("Опрос фоновых задач не должен учитываться.",
+                limiterStats("LIST").get("admitted").asLong() == admitted);
+    }
+
+    //test4
+    @Test
+    public void streamsNotAdaptedTest() throws Exception {
+        long listAdmitted = limiterStats("LIST").get("admitted").asLong();
+        long writeAdmitted = limiterStats("WRITE").get("admitted").asLong();
+        long streamAdmitted = limiterStats("STREAM").get("admitted").asLong();
+
+        String exported = performAsync(mockMvc, get("/rest/ships/export?format=CSV"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        performAsync(mockMvc, post("/rest/ships/import?format=CSV")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content(exported))
+                .andExpect(status().isOk());
+
+        JsonNode stats = limiterStats("STREAM");
+        assertEquals("Выгрузка и загрузка должны учитываться отдельно.", 2L,
+                stats.get("admitted").asLong() - streamAdmitted);
+        assertEquals("Предел выгрузки и загрузки не должен меняться.", 3, stats.get("limit").asInt());
+        assertTrue("Выгрузка и загрузка не должны влиять на другие пределы.",
+                limiterStats("LIST").get("admitted").asLong() == listAdmitted
+                        && limiterStats("WRITE").get("admitted").asLong() == writeAdmitted);
+    }
+
+    private void blockThreads() throws InterruptedException {
+        int threads = executor.stats().getThreads();
+        CountDownLatch running = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                running.countDown();
+                return release.await(60, TimeUnit.SECONDS);
+            });
+        }
+        running.await(10, TimeUnit.SECONDS);
+    }
+
+    private JsonNode limiterStats(String endpointClass) throws Exception {
+        JsonNode stats = mapper.readTree(performAsync(mockMvc, get("/rest/metrics/admission"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        for (JsonNode limiter : stats) {
+            if (limiter.get("endpointClass").asText().equals(endpointClass))
+                return limiter;
+        }
+        throw new AssertionError(endpointClass);
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setAdmissionFilter(AdmissionFilter admissionFilter) {
+        this.admissionFilter = admissionFilter;
+    }
+
+    @Autowired
+    public void setExecutor(ShipRequestExecutor executor) {
+        this.executor = executor;
+    }
+}
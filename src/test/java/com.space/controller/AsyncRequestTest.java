@@ -0,0 +1,243 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = "cosmoport.async.queueCapacity=1")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class AsyncRequestTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+    private ShipRequestExecutor executor;
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @After
+    public void releaseThreads() throws Exception {
+        release.countDown();
+        awaitIdle();
+    }
+
+    //test1
+    @Test
+    public void queryLeavesContainerThreadTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/rest/ships/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+
+        JsonNode stats = executorStats();
+        assertTrue("Запрос должен выполниться в пуле базы.", stats.get("completed").asLong() >= 1);
+        assertEquals("Пул должен быть размером с пул соединений.", 4, stats.get("threads").asInt());
+    }
+
+    //test2
+    @Test
+    public void fullQueueRejectedTest() throws Exception {
+        int threads = executorStats().get("threads").asInt();
+        for (int i = 0; i < threads; i++) {
+            blockThread();
+        }
+        //takes the only place in the queue
+        executor.submit(() -> release.await(60, TimeUnit.SECONDS));
+
+        performAsync(mockMvc, get("/rest/ships/count"))
+                .andExpect(status().isServiceUnavailable());
+
+        release.countDown();
+        awaitIdle();
+        performAsync(mockMvc, get("/rest/ships/count"))
+                .andExpect(status().isOk());
+
+        assertTrue("Отклонённый запрос должен учитываться.", executorStats().get("rejected").asLong() == 1);
+    }
+
+    //test3
+    @Test
+    public void timedOutRequestDroppedTest() throws Exception {
+        int count = new TestsHelper().getAllShips().size();
+        long timedOut = executorStats().get("timedOut").asLong();
+        int threads = executorStats().get("threads").asInt();
+        for (int i = 0; i < threads; i++) {
+            blockThread();
+        }
+
+        MvcResult queued = mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue("Запрос должен ждать в очереди.", executorStats().get("queued").asInt() == 1);
+
+        //the mock container never times out by itself
+        MockAsyncContext asyncContext = (MockAsyncContext) queued.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        mockMvc.perform(asyncDispatch(queued))
+                .andExpect(status().isServiceUnavailable());
+
+        release.countDown();
+        awaitIdle();
+        performAsync(mockMvc, get("/rest/ships/count"))
+                .andExpect(status().isOk());
+
+        assertEquals("Просроченный запрос не должен выполняться.", count,
+                jdbcTemplate.queryForObject("select count(*) from ship", Integer.class));
+        assertTrue("Просроченный запрос должен учитываться.", executorStats().get("timedOut").asLong() == timedOut + 1);
+    }
+
+    //test4
+    @Test
+    public void timedOutRunningWriteTest() throws Exception {
+        try (Connection lock = jdbcTemplate.getDataSource().getConnection()) {
+            lock.setAutoCommit(false);
+            lock.createStatement().executeQuery("select * from ship where id = 1 for update").close();
+
+            MvcResult running = mockMvc.perform(post("/rest/ships/1")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"name\": \"Locked\"}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            //the update has started once it waits for the lock
+            long deadline = System.currentTimeMillis() + 10000;
+            while (jdbcTemplate.queryForObject("select count(*) from information_schema.innodb_trx where trx_state = 'LOCK WAIT'",
+                    Integer.class) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            MockAsyncContext asyncContext = (MockAsyncContext) running.getRequest().getAsyncContext();
+            for (AsyncListener listener : asyncContext.getListeners()) {
+                listener.onTimeout(new AsyncEvent(asyncContext));
+            }
+            mockMvc.perform(asyncDispatch(running))
+                    .andExpect(status().isGatewayTimeout());
+
+            lock.commit();
+        }
+        awaitIdle();
+
+        assertEquals("Начатая запись должна завершиться после ответа.", "Locked",
+                jdbcTemplate.queryForObject("select name from ship where id = 1", String.class));
+    }
+
+    //test5
+    @Test
+    public void timedOutRequestFreesQueueTest() throws Exception {
+        int threads = executorStats().get("threads").asInt();
+        for (int i = 0; i < threads; i++) {
+            blockThread();
+        }
+
+        //takes the only place in the queue and times out there
+        MvcResult expired = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) expired.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        mockMvc.perform(asyncDispatch(expired))
+                .andExpect(status().isServiceUnavailable());
+        assertEquals("Просроченный запрос должен покинуть очередь.", 0, executorStats().get("queued").asInt());
+
+        MvcResult accepted = mockMvc.perform(get("/rest/ships/count"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        release.countDown();
+        accepted.getAsyncResult(10000);
+        mockMvc.perform(asyncDispatch(accepted))
+                .andExpect(status().isOk());
+    }
+
+    // returns once a thread has taken the task, so the next one is not rejected while this one is still queued
+    private void blockThread() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        executor.submit(() -> {
+            running.countDown();
+            return release.await(60, TimeUnit.SECONDS);
+        });
+        running.await(10, TimeUnit.SECONDS);
+    }
+
+    private void awaitIdle() throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        JsonNode stats = executorStats();
+        while ((stats.get("active").asInt() > 0 || stats.get("queued").asInt() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            stats = executorStats();
+        }
+    }
+
+    private JsonNode executorStats() throws Exception {
+        return mapper.readTree(performAsync(mockMvc, get("/rest/metrics/executor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Autowired
+    public void setExecutor(ShipRequestExecutor executor) {
+        this.executor = executor;
+    }
+}
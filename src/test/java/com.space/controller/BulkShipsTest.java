@@ -0,0 +1,233 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class BulkShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void deleteShipsByFilterTest() throws Exception {
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByIsUsed(true,
+                testsHelper.getShipInfosByPlanet("Saturn", testsHelper.getAllShips()));
+
+        String deleted = performAsync(mockMvc, delete("/rest/ships/bulk?planet=Saturn&isUsed=true")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Возвращается неверное количество удалённых кораблей.", String.valueOf(expected.size()), deleted);
+        assertEquals("Удалённые корабли не должны находиться.", "0", getContent("/rest/ships/count?planet=Saturn&isUsed=true"));
+        assertEquals("Остальные корабли не должны удаляться.",
+                String.valueOf(testsHelper.getAllShips().size() - expected.size()), getContent("/rest/ships/count"));
+    }
+
+    //test2
+    @Test
+    public void updateShipsRecomputesRatingTest() throws Exception {
+        List<ShipInfoTest> mars = mapper.readValue(getContent("/rest/ships?planet=Mars&pageSize=100"),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+
+        String updated = postBulk("planet=Mars", "{\"speed\": 0.5, \"isUsed\": true, \"crewSize\": 100}");
+        assertEquals("Возвращается неверное количество изменённых кораблей.", String.valueOf(mars.size()), updated);
+
+        for (ShipInfoTest before : mars) {
+            ShipInfoTest after = getShip(before.id);
+            assertTrue("Поля должны быть изменены.", after.speed == 0.5 && after.isUsed && after.crewSize == 100);
+            assertTrue("Неизменённые поля должны сохраниться.",
+                    after.name.equals(before.name) && after.prodDate.equals(before.prodDate));
+            assertEquals("Рейтинг должен быть пересчитан.", rating(0.5, true, before.prodDate), after.rating);
+        }
+    }
+
+    //test3
+    @Test
+    public void updateShipsFieldUsedByFilterTest() throws Exception {
+        List<ShipInfoTest> used = testsHelper.getShipInfosByIsUsed(true, testsHelper.getAllShips());
+        long prodDate = 32998274577071L;
+
+        String updated = postBulk("isUsed=true", "{\"isUsed\": false, \"prodDate\": " + prodDate + "}");
+        assertEquals("Возвращается неверное количество изменённых кораблей.", String.valueOf(used.size()), updated);
+        assertEquals("Изменённые корабли не должны находиться по старому фильтру.", "0", getContent("/rest/ships/count?isUsed=true"));
+
+        for (ShipInfoTest before : used) {
+            ShipInfoTest after = getShip(before.id);
+            assertTrue("Поля должны быть изменены.", !after.isUsed && after.speed.equals(before.speed));
+            assertEquals("Рейтинг должен быть пересчитан.", rating(before.speed, false, prodDate), after.rating);
+        }
+
+        List<ShipInfoTest> ships = mapper.readValue(getContent("/rest/ships?isUsed=false&pageSize=100"),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+        assertTrue("Остальные корабли не должны изменяться.", ships.size() == testsHelper.getAllShips().size());
+    }
+
+    //test4
+    @Test
+    public void updateShipsWithNullRatingInputsTest() throws Exception {
+        List<ShipInfoTest> mars = mapper.readValue(getContent("/rest/ships?planet=Mars&pageSize=100"),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+        long noSpeed = mars.get(0).id;
+        long noUsage = mars.get(1).id;
+        jdbcTemplate.update("update ship set speed = null where id = ?", noSpeed);
+        jdbcTemplate.update("update ship set isUsed = null where id = ?", noUsage);
+        long prodDate = 32998274577071L;
+
+        String updated = postBulk("planet=Mars", "{\"prodDate\": " + prodDate + "}");
+        assertEquals("Каждый корабль должен учитываться один раз.", String.valueOf(mars.size()), updated);
+
+        for (ShipInfoTest before : mars) {
+            ShipInfoTest after = getShip(before.id);
+            assertEquals("Версия должна увеличиться один раз.", 1L,
+                    jdbcTemplate.queryForObject("select version from ship where id = ?", Long.class, before.id));
+            if (before.id == noSpeed || before.id == noUsage)
+                assertTrue("Рейтинг корабля без параметра должен стать пустым.", after.rating == null);
+            else
+                assertEquals("Рейтинг должен быть пересчитан.", rating(before.speed, before.isUsed, prodDate), after.rating);
+        }
+    }
+
+    //test5
+    @Test
+    public void bulkOperationsBadRequestTest() throws Exception {
+        performAsync(mockMvc, delete("/rest/ships/bulk")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+
+        performAsync(mockMvc, post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        performAsync(mockMvc, post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.TOO_BIG_CREW_SIZE_JSON))
+                .andExpect(status().isBadRequest());
+
+        performAsync(mockMvc, post("/rest/ships/bulk")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"speed\": 0.5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void updateShipsInManyRatingGroupsTest() throws Exception {
+        //one production year per ship, every ship is its own rating group
+        for (int year = 2900; year < 3000; year++) {
+            jdbcTemplate.update("insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                    + "values ('Probe', 'Kepler', 'TRANSPORT', ?, false, 0.5, 10, 0)", year + "-06-01");
+        }
+
+        String updated = postBulk("planet=Kepler", "{\"isUsed\": true}");
+        assertEquals("Все корабли должны быть изменены.", "100", updated);
+        for (Map<String, Object> row : jdbcTemplate.queryForList("select prodDate, rating from ship where planet = 'Kepler'")) {
+            assertEquals("Рейтинг должен быть пересчитан.", rating(0.5, true, ((Date) row.get("prodDate")).getTime()), row.get("rating"));
+        }
+
+        jdbcTemplate.update("insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                + "values ('Probe', 'Kepler', 'TRANSPORT', '3000-06-01', true, 0.5, 10, 0)");
+        performAsync(mockMvc, post("/rest/ships/bulk?planet=Kepler")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\": false}"))
+                .andExpect(status().isBadRequest());
+        assertEquals("Изменение с рейтингами больше допустимого числа групп не должно применяться.", 0,
+                jdbcTemplate.queryForObject("select count(*) from ship where planet = 'Kepler' and isUsed = false", Integer.class));
+    }
+
+    private Double rating(double speed, boolean isUsed, long prodDate) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(new Date(prodDate));
+        int year = calendar.get(Calendar.YEAR);
+
+        return new BigDecimal((80 * speed * (isUsed ? 0.5 : 1)) / (3019 - year + 1))
+                .setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    private String postBulk(String filter, String values) throws Exception {
+        return performAsync(mockMvc, post("/rest/ships/bulk?" + filter)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(values))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private ShipInfoTest getShip(Long id) throws Exception {
+        return mapper.readValue(getContent("/rest/ships/" + id), ShipInfoTest.class);
+    }
+
+    private String getContent(String url) throws Exception {
+        return performAsync(mockMvc, get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,139 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+@TestPropertySource(properties = "cosmoport.listETag.enabled=true")
+public class ConditionalGetTest {
+
+    private static final String LIST = "/rest/ships?planet=Mars&pageSize=10";
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void shipNotModifiedTest() throws Exception {
+        String etag = perform(get("/rest/ships/5"), 200).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse notModified = perform(get("/rest/ships/5").header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        assertEquals("Ответ 304 не должен содержать тело.", "", notModified.getContentAsString());
+        assertEquals("Ответ 304 должен содержать ETag.", etag, notModified.getHeader(HttpHeaders.ETAG));
+
+        perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Excalibur II\"}"), 200);
+
+        MockHttpServletResponse modified = perform(get("/rest/ships/5").header(HttpHeaders.IF_NONE_MATCH, etag), 200);
+        assertTrue("Изменённый корабль должен вернуться с новым ETag.",
+                modified.getContentAsString().contains("Excalibur II") && !etag.equals(modified.getHeader(HttpHeaders.ETAG)));
+    }
+
+    //test2
+    @Test
+    public void listNotModifiedWithoutQueryTest() throws Exception {
+        MockHttpServletResponse list = perform(get(LIST), 200);
+        String etag = list.getHeader(HttpHeaders.ETAG);
+        assertTrue("Список должен содержать сильный ETag.", etag != null && etag.startsWith("\""));
+        //test.sql recreates the table, the first execution of a cached statement is prepared again and counted twice
+        perform(get(LIST), 200);
+
+        long selects = globalStatus("Com_select");
+        MockHttpServletResponse notModified = perform(get(LIST).header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        perform(get("/rest/ships/count?planet=Mars").header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+        perform(get("/rest/ships/page?planet=Mars").header(HttpHeaders.IF_NONE_MATCH, etag), 304);
+
+        assertEquals("Неизменённый список не должен читаться из базы.", 0L, globalStatus("Com_select") - selects);
+        assertEquals("Ответ 304 не должен содержать тело.", "", notModified.getContentAsString());
+
+        perform(get("/rest/ships/count?planet=Mars").header(HttpHeaders.IF_NONE_MATCH, "\"other\""), 200);
+    }
+
+    //test3
+    @Test
+    public void writesChangeListETagTest() throws Exception {
+        String etag = perform(get(LIST), 200).getHeader(HttpHeaders.ETAG);
+
+        perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.IS_USED_FALSE_JSON), 200);
+        etag = assertChanged(etag, "Создание корабля должно изменить ETag списка.");
+
+        perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 42}"), 200);
+        etag = assertChanged(etag, "Редактирование корабля должно изменить ETag списка.");
+
+        perform(delete("/rest/ships/1"), 200);
+        etag = assertChanged(etag, "Удаление корабля должно изменить ETag списка.");
+
+        perform(delete("/rest/ships/bulk?planet=Mars"), 200);
+        assertChanged(etag, "Массовое удаление должно изменить ETag списка.");
+    }
+
+    private String assertChanged(String etag, String message) throws Exception {
+        MockHttpServletResponse response = perform(get(LIST).header(HttpHeaders.IF_NONE_MATCH, etag), 200);
+        assertTrue(message, !etag.equals(response.getHeader(HttpHeaders.ETAG)));
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private MockHttpServletResponse perform(RequestBuilder request, int status) throws Exception {
+        return performAsync(mockMvc, request)
+                .andExpect(status().is(status))
+                .andReturn().getResponse();
+    }
+
+    private long globalStatus(String name) {
+        return jdbcTemplate.queryForObject("show global status like '" + name + "'", (rs, i) -> rs.getLong(2));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static com.space.controller.utils.TestsHelper.performAsync;
 import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -48,7 +49,7 @@ public class CreateShipTest {
     //test1
     @Test
     public void createShipEmptyBodyTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content("{}")
@@ -59,7 +60,7 @@ public class CreateShipTest {
     //test2
     @Test
     public void createShipNoSpeedTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NO_SPEED_JSON))
@@ -69,7 +70,7 @@ public class CreateShipTest {
     //test3
     @Test
     public void createShipEmptyNameTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.EMPTY_NAME_JSON))
@@ -79,7 +80,7 @@ public class CreateShipTest {
     //test4
     @Test
     public void createShipProdDateNegativeTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NEGATIVE_PROD_DATE_JSON))
@@ -89,7 +90,7 @@ public class CreateShipTest {
     //test5
     @Test
     public void createShipCrewSizeTooBigTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.TOO_BIG_CREW_SIZE_JSON))
@@ -99,7 +100,7 @@ public class CreateShipTest {
     //test6
     @Test
     public void createShipPlanetLengthTooBigTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/")
+        performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.TOO_BIG_PLANET_LENGTH_JSON))
@@ -112,7 +113,7 @@ public class CreateShipTest {
         expected.isUsed = false;
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NO_IS_USED_JSON))
@@ -126,7 +127,7 @@ public class CreateShipTest {
     //test8
     @Test
     public void createShipIsUsedTrueTest() throws Exception {
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.IS_USED_TRUE_JSON))
@@ -143,7 +144,7 @@ public class CreateShipTest {
         expected.isUsed = false;
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.IS_USED_FALSE_JSON))
@@ -0,0 +1,150 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.batch.maxSize=1500", "cosmoport.batch.jdbcBatchSize=100"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class CreateShipsBatchTest {
+
+    private WebApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void createShipsReportsInvalidItemsTest() throws Exception {
+        String batch = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NO_SPEED_JSON + ","
+                + TestsHelper.IS_USED_TRUE_JSON + "," + TestsHelper.TOO_BIG_CREW_SIZE_JSON + "]";
+
+        JsonNode result = postBatch(batch);
+
+        assertTrue("Корректные корабли должны быть созданы.", result.get("created").size() == 2);
+        assertTrue("Некорректные корабли должны попасть в список ошибок.", result.get("errors").size() == 2);
+        assertTrue("Ошибка должна указывать номер корабля в пакете.",
+                result.get("errors").get(0).get("index").asInt() == 1
+                        && result.get("errors").get(1).get("index").asInt() == 3);
+
+        ShipInfoTest first = mapper.treeToValue(result.get("created").get(0), ShipInfoTest.class);
+        ShipInfoTest second = mapper.treeToValue(result.get("created").get(1), ShipInfoTest.class);
+        assertTrue("Новым кораблям должны быть присвоены id.", first.id == 41 && second.id == 42);
+        assertTrue("Рейтинг должен быть рассчитан.", first.rating != null && second.rating != null);
+
+        String contentAsString = performAsync(mockMvc, get("/rest/ships/42")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Созданный корабль должен читаться по id.", second, mapper.readValue(contentAsString, ShipInfoTest.class));
+    }
+
+    //test2
+    @Test
+    public void createShipsInJdbcBatchesTest() throws Exception {
+        int size = 1200;
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < size; i++) {
+            batch.add(String.format(TestsHelper.JSON_SKELETON_2, "Planet " + i, "MERCHANT", 32998274577071L)
+                    .replace("{", "{\"name\": \"Ship " + i + "\", \"speed\": 0.5, \"crewSize\": 10,"));
+        }
+
+        long insertsBefore = comInsert();
+        JsonNode result = postBatch(batch.toString());
+        long inserts = comInsert() - insertsBefore;
+
+        assertTrue("Все корабли должны быть созданы.", result.get("created").size() == size);
+        Set<Long> ids = new HashSet<>();
+        result.get("created").forEach(ship -> ids.add(ship.get("id").asLong()));
+        assertTrue("Каждый корабль должен получить свой id.", ids.size() == size);
+
+        String count = performAsync(mockMvc, get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Все корабли должны быть сохранены.", String.valueOf(testsHelper.getAllShips().size() + size), count);
+
+        assertTrue("Вставка должна выполняться пакетами, а не по одной строке: " + inserts, inserts <= size / 100);
+    }
+
+    //test3
+    @Test
+    public void createShipsTooLargeBatchTest() throws Exception {
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < 1501; i++) {
+            batch.add(TestsHelper.NORMAL_JSON);
+        }
+
+        performAsync(mockMvc, post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(batch.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode postBatch(String batch) throws Exception {
+        String contentAsString = performAsync(mockMvc, post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return mapper.readTree(contentAsString);
+    }
+
+    private long comInsert() {
+        return jdbcTemplate.queryForObject("show global status like 'Com_insert'", (rs, i) -> rs.getLong(2));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static com.space.controller.utils.TestsHelper.performAsync;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -38,7 +39,7 @@ public class DeleteShipTest {
     //test1
     @Test
     public void deleteShipByIdZeroTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/0")
+        performAsync(mockMvc, delete("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -46,7 +47,7 @@ public class DeleteShipTest {
     //test2
     @Test
     public void deleteShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/test")
+        performAsync(mockMvc, delete("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -54,7 +55,7 @@ public class DeleteShipTest {
     //test3
     @Test
     public void deleteShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/426")
+        performAsync(mockMvc, delete("/rest/ships/426")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -62,11 +63,11 @@ public class DeleteShipTest {
     //test4
     @Test
     public void deleteShipByIdTest() throws Exception {
-        mockMvc.perform(delete("/rest/ships/1")
+        performAsync(mockMvc, delete("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
-        mockMvc.perform(get("/rest/ships/1")
+        performAsync(mockMvc, get("/rest/ships/1")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
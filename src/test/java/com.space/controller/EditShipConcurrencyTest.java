@@ -0,0 +1,245 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class EditShipConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int EDITS_PER_THREAD = 10;
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void staleIfMatchConflictTest() throws Exception {
+        MockHttpServletResponse read = performAsync(mockMvc, get("/rest/ships/5"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = read.getHeader(HttpHeaders.ETAG);
+        assertEquals("Новый корабль должен иметь версию 0.", "\"0\"", etag);
+
+        MockHttpServletResponse edited = performAsync(mockMvc, edit(5, "{\"name\": \"First\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertEquals("Редактирование должно увеличить версию.", "\"1\"", edited.getHeader(HttpHeaders.ETAG));
+
+        performAsync(mockMvc, edit(5, "{\"name\": \"Second\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isConflict());
+
+        ShipInfoTest ship = mapper.readValue(read(5).getContentAsString(), ShipInfoTest.class);
+        assertEquals("Изменение по устаревшей версии не должно сохраниться.", "First", ship.name);
+
+        performAsync(mockMvc, edit(5, "{\"name\": \"Third\"}").header(HttpHeaders.IF_MATCH, "version 1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test2
+    @Test
+    public void concurrentIfMatchIncrementsTest() throws Exception {
+        int initialCrewSize = mapper.readValue(read(1).getContentAsString(), ShipInfoTest.class).crewSize;
+
+        runConcurrently(thread -> {
+            int conflicts = 0;
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                //read-modify-write, repeated from the read whenever another thread got in between
+                while (true) {
+                    MockHttpServletResponse read = read(1);
+                    int crewSize = mapper.readValue(read.getContentAsString(), ShipInfoTest.class).crewSize;
+
+                    int status = performAsync(mockMvc, edit(1, "{\"crewSize\": " + (crewSize + 1) + "}")
+                            .header(HttpHeaders.IF_MATCH, read.getHeader(HttpHeaders.ETAG)))
+                            .andReturn().getResponse().getStatus();
+                    if (status == 200)
+                        break;
+                    assertEquals("Неожиданный статус при конфликте.", 409, status);
+                    conflicts++;
+                }
+            }
+            return conflicts;
+        });
+
+        ShipInfoTest ship = mapper.readValue(read(1).getContentAsString(), ShipInfoTest.class);
+        assertEquals("Ни одно изменение не должно потеряться.", initialCrewSize + THREADS * EDITS_PER_THREAD, ship.crewSize);
+        assertEquals("Версия должна учитывать каждое изменение.", "\"" + THREADS * EDITS_PER_THREAD + "\"",
+                read(1).getHeader(HttpHeaders.ETAG));
+    }
+
+    //test3
+    @Test
+    public void concurrentPartialEditsTest() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                //the threads change different columns, some of them rating inputs
+                String json;
+                switch (thread % 4) {
+                    case 0:
+                        json = "{\"name\": \"T" + thread + "-" + i + "\"}";
+                        break;
+                    case 1:
+                        json = "{\"planet\": \"T" + thread + "-" + i + "\", \"speed\": 0." + (10 + thread) + "}";
+                        break;
+                    case 2:
+                        json = "{\"isUsed\": " + (i % 2 == 0) + "}";
+                        break;
+                    default:
+                        json = "{\"crewSize\": " + (100 + i) + "}";
+                }
+                performAsync(mockMvc, edit(2, json))
+                        .andExpect(status().isOk());
+            }
+            return 0;
+        });
+
+        ShipInfoTest ship = mapper.readValue(read(2).getContentAsString(), ShipInfoTest.class);
+        assertTrue("Имя должно быть последним из записанных.", ship.name.endsWith("-" + (EDITS_PER_THREAD - 1)));
+        assertTrue("Планета должна быть последней из записанных.", ship.planet.endsWith("-" + (EDITS_PER_THREAD - 1)));
+        assertTrue("Экипаж должен быть последним из записанных.", ship.crewSize == 100 + EDITS_PER_THREAD - 1);
+
+        Double rating = jdbcTemplate.queryForObject("select round(80 * speed * if(isUsed, 0.5, 1) / (3019 - year(prodDate) + 1), 2)"
+                + " from ship where id = 2", Double.class);
+        assertEquals("Рейтинг должен соответствовать сохранённым параметрам.", rating, ship.rating);
+    }
+
+    //test4
+    @Test
+    public void editQueryCountTest() throws Exception {
+        warmUpConnections();
+
+        long selects = globalStatus("Com_select");
+        long updates = globalStatus("Com_update");
+
+        performAsync(mockMvc, edit(3, "{\"crewSize\": 100}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Редактирование должно читать корабль один раз.", 1L, globalStatus("Com_select") - selects);
+        assertEquals("Редактирование должно выполнять один UPDATE.", 1L, globalStatus("Com_update") - updates);
+
+        selects = globalStatus("Com_select");
+        updates = globalStatus("Com_update");
+
+        performAsync(mockMvc, edit(3, "{\"crewSize\": 100}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Редактирование без изменений не должно писать в базу.", 0L, globalStatus("Com_update") - updates);
+        assertEquals("Редактирование без изменений должно читать корабль один раз.", 1L, globalStatus("Com_select") - selects);
+    }
+
+    // test.sql recreates the table, the first execution of a cached statement is prepared again and counted twice;
+    // edits run on any pooled connection, so each one is handed to an edit alone
+    private void warmUpConnections() throws Exception {
+        List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < ((HikariDataSource) dataSource).getMaximumPoolSize(); i++) {
+            held.add(dataSource.getConnection());
+        }
+        for (int i = 0; i < held.size(); i++) {
+            held.get(i).close();
+            performAsync(mockMvc, edit(4, "{\"crewSize\": " + (100 + i) + "}"))
+                    .andExpect(status().isOk());
+            held.set(i, dataSource.getConnection());
+        }
+        for (Connection connection : held) {
+            connection.close();
+        }
+    }
+
+    private interface EditTask {
+        int run(int thread) throws Exception;
+    }
+
+    private void runConcurrently(EditTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int number = thread;
+                results.add(executor.submit((Callable<Integer>) () -> task.run(number)));
+            }
+            for (Future<Integer> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MockHttpServletRequestBuilder edit(long id, String json) {
+        return post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(json);
+    }
+
+    private MockHttpServletResponse read(long id) throws Exception {
+        return performAsync(mockMvc, get("/rest/ships/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private long globalStatus(String name) {
+        return jdbcTemplate.queryForObject("show global status like '" + name + "'", (rs, i) -> rs.getLong(2));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
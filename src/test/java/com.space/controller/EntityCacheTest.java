@@ -0,0 +1,237 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = "db.secondLevelCache.enabled=true")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class EntityCacheTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+    private ShipService service;
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //test.sql has just recreated the table
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    //test1
+    @Test
+    public void cachedShipWithoutSqlTest() throws Exception {
+        read(5);
+        JsonNode before = shipRegion();
+        long selects = globalStatus("Com_select");
+
+        ShipInfoTest ship = mapper.readValue(read(5).getContentAsString(), ShipInfoTest.class);
+
+        assertEquals("Корабль из кэша не должен читаться из базы.", 0L, globalStatus("Com_select") - selects);
+        assertEquals("Из кэша должен вернуться тот же корабль.", "Excalibur", ship.name);
+
+        JsonNode after = shipRegion();
+        assertTrue("Попадание в кэш должно учитываться.",
+                after.get("hitCount").asLong() == before.get("hitCount").asLong() + 1 && after.get("hitRatio").asDouble() > 0);
+    }
+
+    //test2
+    @Test
+    public void editEvictsCachedShipTest() throws Exception {
+        read(5);
+        read(1);
+
+        performAsync(mockMvc, post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Excalibur II\"}"))
+                .andExpect(status().isOk());
+
+        long selects = globalStatus("Com_select");
+        MockHttpServletResponse response = read(5);
+
+        assertEquals("Изменённый корабль должен читаться из базы заново.", 1L, globalStatus("Com_select") - selects);
+        assertEquals("Кэш должен вернуть новое имя.", "Excalibur II",
+                mapper.readValue(response.getContentAsString(), ShipInfoTest.class).name);
+        assertEquals("Кэш должен вернуть новую версию.", "\"1\"", response.getHeader(HttpHeaders.ETAG));
+
+        selects = globalStatus("Com_select");
+        read(5);
+        read(1);
+        assertEquals("Остальные корабли должны остаться в кэше.", 0L, globalStatus("Com_select") - selects);
+    }
+
+    //test3
+    @Test
+    public void bulkAndDeleteInvalidateCacheTest() throws Exception {
+        read(1);
+        read(6);
+
+        performAsync(mockMvc, post("/rest/ships/bulk?planet=Mars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 42}"))
+                .andExpect(status().isOk());
+        performAsync(mockMvc, delete("/rest/ships/6"))
+                .andExpect(status().isOk());
+
+        assertTrue("Массовое изменение должно быть видно через кэш.",
+                mapper.readValue(read(1).getContentAsString(), ShipInfoTest.class).crewSize == 42);
+        performAsync(mockMvc, get("/rest/ships/6"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test4
+    @Test
+    public void rerateEvictsCachedShipTest() throws Exception {
+        Double rating = mapper.readValue(read(7).getContentAsString(), ShipInfoTest.class).rating;
+        jdbcTemplate.update("update ship set rating = 0 where id = 7");
+        entityManagerFactory.getCache().evict(Ship.class, 7L);
+        assertTrue("В кэше должен оказаться устаревший рейтинг.",
+                mapper.readValue(read(7).getContentAsString(), ShipInfoTest.class).rating == 0);
+
+        JsonNode rerate = mapper.readTree(performAsync(mockMvc, post("/rest/ships/rerate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        long deadline = System.currentTimeMillis() + 10000;
+        while (rerate.get("state").asText().equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            rerate = mapper.readTree(performAsync(mockMvc, get("/rest/ships/rerate"))
+                    .andReturn().getResponse().getContentAsString());
+        }
+
+        assertEquals("Пересчёт должен сбросить корабль из кэша.", rating,
+                mapper.readValue(read(7).getContentAsString(), ShipInfoTest.class).rating);
+    }
+
+    //test5
+    @Test
+    public void deleteStaleCachedShipTest() throws Exception {
+        read(8);
+        //an edit the cache has not seen
+        jdbcTemplate.update("update ship set version = version + 1 where id = 8");
+
+        performAsync(mockMvc, delete("/rest/ships/8"))
+                .andExpect(status().isOk());
+
+        assertEquals("Корабль должен быть удалён.", 0,
+                jdbcTemplate.queryForObject("select count(*) from ship where id = 8", Integer.class));
+        performAsync(mockMvc, get("/rest/ships/8"))
+                .andExpect(status().isNotFound());
+    }
+
+    //test6
+    @Test
+    public void editEvictsAgainAfterCommitTest() throws Exception {
+        Ship edit = new Ship();
+        edit.setName("Excalibur II");
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            service.editShip(5L, edit, null);
+            //another request reads the row before the edit commits and caches the old ship
+            Thread reader = new Thread(() -> service.getShip(5L));
+            reader.start();
+            try {
+                reader.join(10000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return null;
+        });
+
+        assertEquals("После фиксации кэш не должен хранить старый корабль.", "Excalibur II",
+                mapper.readValue(read(5).getContentAsString(), ShipInfoTest.class).name);
+    }
+
+    private MockHttpServletResponse read(long id) throws Exception {
+        return performAsync(mockMvc, get("/rest/ships/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+
+    private JsonNode shipRegion() throws Exception {
+        JsonNode regions = mapper.readTree(performAsync(mockMvc, get("/rest/metrics/entity-cache")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        for (JsonNode region : regions) {
+            if (region.get("regionName").asText().equals(Ship.class.getName()))
+                return region;
+        }
+        throw new AssertionError("Нет региона кэша для кораблей.");
+    }
+
+    private long globalStatus(String name) {
+        return jdbcTemplate.queryForObject("show global status like '" + name + "'", (rs, i) -> rs.getLong(2));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Autowired
+    public void setService(ShipService service) {
+        this.service = service;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    @Autowired
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+}
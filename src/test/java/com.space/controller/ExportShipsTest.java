@@ -0,0 +1,142 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.service.ShipFilter;
+import com.space.service.ShipService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ExportShipsTest {
+
+    // 40 seed rows + 40^3 cross join, then multiplied by 4
+    private static final long LARGE_COUNT = (40 + 40 * 40 * 40) * 4;
+    private static final long MAX_RETAINED_BYTES = 24 * 1024 * 1024;
+
+    private WebApplicationContext context;
+    private ShipService service;
+    private MockMvc mockMvc;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void exportNdjsonTest() throws Exception {
+        MvcResult result = performAsync(mockMvc, get("/rest/ships/export?planet=a&order=SPEED"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ShipInfoTest> expected = mapper.readValue(getContent("/rest/ships?planet=a&order=SPEED&pageSize=100"),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+        //the export breaks speed ties by id
+        expected.sort(Comparator.comparing((ShipInfoTest ship) -> ship.speed).thenComparing(ship -> ship.id));
+
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+
+        assertTrue("Неверный тип содержимого.", result.getResponse().getContentType().startsWith("application/x-ndjson"));
+        assertEquals("Экспорт должен содержать все корабли по фильтру в заданном порядке.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvTest() throws Exception {
+        MvcResult result = performAsync(mockMvc, get("/rest/ships/export?format=CSV&shipType=MILITARY"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<ShipInfoTest> expected = mapper.readValue(getContent("/rest/ships?shipType=MILITARY&pageSize=100"),
+                new TypeReference<List<ShipInfoTest>>() {
+                });
+
+        String[] lines = result.getResponse().getContentAsString().split("\r\n");
+
+        assertTrue("Неверный тип содержимого.", result.getResponse().getContentType().startsWith("text/csv"));
+        assertEquals("Первая строка должна быть заголовком.",
+                "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines[0]);
+        assertTrue("Экспорт должен содержать все корабли по фильтру.", lines.length == expected.size() + 1);
+
+        ShipInfoTest first = expected.get(0);
+        assertEquals("Строка должна содержать поля корабля.",
+                first.id + "," + first.name + "," + first.planet + "," + first.shipType + "," + first.prodDate + ","
+                        + first.isUsed + "," + first.speed + "," + first.crewSize + "," + first.rating, lines[1]);
+    }
+
+    //test3
+    @Test
+    @Sql(scripts = {"classpath:test.sql", "classpath:test-large.sql"}, config = @SqlConfig(encoding = "UTF-8"))
+    public void exportLargeTableInConstantMemoryTest() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        AtomicLong rows = new AtomicLong();
+        AtomicLong maxRetained = new AtomicLong();
+        service.exportShips(new ShipFilter(), ShipOrder.ID, ship -> {
+            if (rows.incrementAndGet() % 65536 == 0) {
+                System.gc();
+                maxRetained.accumulateAndGet(memory.getHeapMemoryUsage().getUsed() - baseline, Math::max);
+            }
+        });
+
+        assertTrue("Экспорт должен пройти по всем кораблям.", rows.get() == LARGE_COUNT);
+        assertTrue("Память при экспорте не должна расти с числом строк, удерживается байт: " + maxRetained.get(),
+                maxRetained.get() < MAX_RETAINED_BYTES);
+    }
+
+    private String getContent(String url) throws Exception {
+        return performAsync(mockMvc, get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setService(ShipService service) {
+        this.service = service;
+    }
+}
@@ -0,0 +1,152 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class GetAllKeysetTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void getAllWithCursorWalksAllShipsById() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?pageSize=7");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.ID, testsHelper.getAllShips());
+
+        assertTrue("При постраничном обходе GET /rest/ships с параметром cursor должны возвращаться все корабли по порядку.", actual.equals(expected));
+    }
+
+    //test2
+    @Test
+    public void getAllWithCursorWalksFilteredShipsBySpeed() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?isUsed=false&order=SPEED&pageSize=4");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                testsHelper.getShipInfosByIsUsed(false, testsHelper.getAllShips()));
+
+        assertTrue("При постраничном обходе GET /rest/ships с параметрами cursor, isUsed и order=SPEED возвращается не правильный результат.", actual.equals(expected));
+    }
+
+    //test3
+    @Test
+    public void getAllWithCursorWalksShipsByDate() throws Exception {
+        List<ShipInfoTest> actual = readAllPages("/rest/ships?order=DATE&pageSize=5");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.DATE, testsHelper.getAllShips());
+
+        assertTrue("При постраничном обходе GET /rest/ships с параметрами cursor и order=DATE должны возвращаться все корабли.", actual.size() == expected.size());
+        for (int i = 1; i < actual.size(); i++) {
+            assertTrue("При постраничном обходе GET /rest/ships с параметром order=DATE нарушен порядок.",
+                    actual.get(i - 1).prodDate <= actual.get(i).prodDate);
+        }
+    }
+
+    //test4
+    @Test
+    public void getAllWithCursorOfAnotherOrder() throws Exception {
+        String cursor = performAsync(mockMvc, get("/rest/ships?cursor=&order=RATING")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+
+        performAsync(mockMvc, get("/rest/ships?order=SPEED&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void getAllWithInvalidCursor() throws Exception {
+        performAsync(mockMvc, get("/rest/ships?cursor=garbage")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void getAllWithCursorWalksNullSortKeys() throws Exception {
+        jdbcTemplate.update("update ship set speed = null where id in (3, 8, 9, 21, 34)");
+        jdbcTemplate.update("update ship set rating = null where id in (2, 8, 17, 40)");
+
+        for (String order : new String[]{"SPEED", "RATING"}) {
+            List<Long> actual = readAllPages("/rest/ships?order=" + order + "&pageSize=2").stream()
+                    .map(ship -> ship.id)
+                    .collect(Collectors.toList());
+            List<Long> expected = jdbcTemplate.queryForList(
+                    "select id from ship order by " + order.toLowerCase() + ", id", Long.class);
+
+            assertTrue("При постраничном обходе GET /rest/ships с параметром order=" + order
+                    + " корабли без значения должны возвращаться ровно один раз и по порядку.", actual.equals(expected));
+        }
+    }
+
+    private List<ShipInfoTest> readAllPages(String url) throws Exception {
+        List<ShipInfoTest> ships = new ArrayList<>();
+        String cursor = "";
+        do {
+            MockHttpServletResponse response = performAsync(mockMvc, get(url + "&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+
+            ships.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(ShipRestController.NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+
+        return ships;
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
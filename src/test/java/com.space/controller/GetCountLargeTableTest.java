@@ -0,0 +1,90 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = {"classpath:test.sql", "classpath:test-large.sql"}, config = @SqlConfig(encoding = "UTF-8"))
+public class GetCountLargeTableTest {
+
+    // 40 seed rows + 40^3 cross join, then multiplied by 4
+    private static final long EXPECTED_COUNT = (40 + 40 * 40 * 40) * 4;
+    private static final long MAX_ALLOCATED_BYTES = 32 * 1024 * 1024;
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void getCountOnLargeTableDoesNotLoadShips() throws Exception {
+        Map<Long, Long> allocatedBefore = allocatedBytes();
+
+        String contentAsString = performAsync(mockMvc, get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        long allocated = allocatedSince(allocatedBefore, allocatedBytes());
+
+        assertTrue("Возвращается не правильный результат при запросе GET /rest/ships/count на большой таблице.",
+                Long.parseLong(contentAsString) == EXPECTED_COUNT);
+        assertTrue("При запросе GET /rest/ships/count корабли не должны загружаться в память, выделено байт: " + allocated,
+                allocated < MAX_ALLOCATED_BYTES);
+    }
+
+    // the count runs on a request executor thread, so every live thread is measured
+    private Map<Long, Long> allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = threadMXBean.getAllThreadIds();
+        long[] bytes = threadMXBean.getThreadAllocatedBytes(ids);
+        Map<Long, Long> allocated = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0)
+                allocated.put(ids[i], bytes[i]);
+        }
+        return allocated;
+    }
+
+    private static long allocatedSince(Map<Long, Long> before, Map<Long, Long> after) {
+        long allocated = 0;
+        for (Map.Entry<Long, Long> thread : after.entrySet()) {
+            allocated += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return allocated;
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
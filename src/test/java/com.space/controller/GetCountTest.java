@@ -9,18 +9,21 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static com.space.controller.utils.TestsHelper.performAsync;
 import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -45,7 +48,7 @@ public class GetCountTest {
     //test1
     @Test
     public void getCountWithoutFiltersReturnAllShips() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -60,7 +63,7 @@ public class GetCountTest {
     //test2
     @Test
     public void getCountWithFiltersMinRatingMinCrewSizeMinSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?minRating=0.5&minCrewSize=100&minSpeed=0.3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -79,7 +82,7 @@ public class GetCountTest {
     @Test
     public void getCountWithFiltersNameAfterMaxRating() throws Exception {
         //after 00:00 01/01/2900
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?name=nt&after=32188140000000&maxRating=3")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -97,7 +100,7 @@ public class GetCountTest {
     //test4
     @Test
     public void getCountWithFiltersShipTypeIsUsed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?shipType=MERCHANT&isUsed=true")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -115,7 +118,7 @@ public class GetCountTest {
     //test5
     @Test
     public void getCountWithFiltersShipTypeMaxCrewSize() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?shipType=MILITARY&maxCrewSize=400")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -132,7 +135,7 @@ public class GetCountTest {
     //test6
     @Test
     public void getCountWithFiltersPlanet() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?planet=us")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?planet=us")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -148,7 +151,7 @@ public class GetCountTest {
     @Test
     public void getCountWithFiltersShipTypeBeforeMaxSpeed() throws Exception {
         //before 00:00 01/01/3015
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?shipType=TRANSPORT&before=32976972000000&maxSpeed=0.7")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -166,7 +169,7 @@ public class GetCountTest {
     //test8
     @Test
     public void getCountWithFiltersIsUsedMinMaxSpeed() throws Exception {
-        ResultActions resultActions = this.mockMvc.perform(get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/count?isUsed=false&minSpeed=0.3&maxSpeed=0.6")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -181,6 +184,18 @@ public class GetCountTest {
         assertTrue("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", actual == expected);
     }
 
+    //test9
+    @Test
+    public void getCountWithoutListETag() throws Exception {
+        MockHttpServletResponse response = performAsync(mockMvc, get("/rest/ships/count?planet=us")
+                .header(HttpHeaders.IF_NONE_MATCH, "*")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertTrue("Без cosmoport.listETag.enabled GET /rest/ships/count не должен возвращать ETag.", response.getHeader(HttpHeaders.ETAG) == null);
+    }
+
     @Autowired
     public void setContext(WebApplicationContext context) {
         this.context = context;
@@ -0,0 +1,97 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class GetShipPageTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void getPageWithoutFiltersReturnsFirstPageAndCount() throws Exception {
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/page")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode page = mapper.readTree(resultActions.andReturn().getResponse().getContentAsString());
+        List<ShipInfoTest> actual = Arrays.asList(mapper.treeToValue(page.get("ships"), ShipInfoTest[].class));
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 3, testsHelper.getAllShips());
+
+        assertTrue("Возвращается не правильный список кораблей при запросе GET /rest/ships/page.", actual.equals(expected));
+        assertTrue("Возвращается не правильное количество при запросе GET /rest/ships/page.",
+                page.get("count").asInt() == testsHelper.getAllShips().size());
+    }
+
+    //test2
+    @Test
+    public void getPageWithFiltersShipTypeOrderPageNumber() throws Exception {
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/page?shipType=MILITARY&order=RATING&pageNumber=1&pageSize=4")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        JsonNode page = mapper.readTree(resultActions.andReturn().getResponse().getContentAsString());
+        List<ShipInfoTest> actual = Arrays.asList(mapper.treeToValue(page.get("ships"), ShipInfoTest[].class));
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips());
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 4,
+                testsHelper.getShipInfosByOrder(ShipOrder.RATING, filtered));
+
+        assertTrue("Возвращается не правильный список кораблей при запросе GET /rest/ships/page с параметрами shipType, order и pageNumber.", actual.equals(expected));
+        assertTrue("Возвращается не правильное количество при запросе GET /rest/ships/page с параметрами shipType, order и pageNumber.",
+                page.get("count").asInt() == filtered.size());
+    }
+
+    //test3
+    @Test
+    public void getPageWithInvalidShipType() throws Exception {
+        performAsync(mockMvc, get("/rest/ships/page?shipType=BATTLESHIP")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
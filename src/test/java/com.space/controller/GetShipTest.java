@@ -21,6 +21,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static com.space.controller.utils.TestsHelper.performAsync;
 import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -42,7 +43,7 @@ public class GetShipTest {
     //test1
     @Test
     public void getShipByIdEqualZeroTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/0")
+        performAsync(mockMvc, get("/rest/ships/0")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -50,7 +51,7 @@ public class GetShipTest {
     //test2
     @Test
     public void getShipByIdNotNumberTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/test")
+        performAsync(mockMvc, get("/rest/ships/test")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isBadRequest());
     }
@@ -58,7 +59,7 @@ public class GetShipTest {
     //test3
     @Test
     public void getShipByIdNotExistTest() throws Exception {
-        mockMvc.perform(get("/rest/ships/410")
+        performAsync(mockMvc, get("/rest/ships/410")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isNotFound());
     }
@@ -68,7 +69,7 @@ public class GetShipTest {
     public void getShipByIdTest() throws Exception {
         ShipInfoTest expected = new TestsHelper().getShipInfosById(14);
 
-        ResultActions resultActions = mockMvc.perform(get("/rest/ships/14")
+        ResultActions resultActions = performAsync(mockMvc, get("/rest/ships/14")
                 .accept(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk());
 
@@ -0,0 +1,143 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = "cosmoport.import.commitSize=2")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ImportShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void importNdjsonRejectsInvalidRowsTest() throws Exception {
+        String body = TestsHelper.NORMAL_JSON + "\n"
+                + "{\"name\": \n"
+                + TestsHelper.IS_USED_TRUE_JSON + "\n"
+                + "\n"
+                + TestsHelper.TOO_BIG_CREW_SIZE_JSON + "\n"
+                + TestsHelper.IS_USED_FALSE_JSON + "\n";
+
+        JsonNode result = importShips("NDJSON", body);
+
+        assertEquals("Импорт должен завершиться.", "COMPLETED", result.get("state").asText());
+        assertTrue("Неверное количество прочитанных строк.", result.get("rowsRead").asLong() == 5);
+        assertTrue("Неверное количество загруженных кораблей.", result.get("imported").asLong() == 3);
+        assertTrue("Неверное количество отклонённых строк.", result.get("rejected").asLong() == 2);
+        assertTrue("Ошибка должна указывать номер строки.",
+                result.get("errors").get(0).get("line").asLong() == 2
+                        && result.get("errors").get(1).get("line").asLong() == 5);
+
+        assertEquals("Корабли должны быть сохранены.",
+                String.valueOf(testsHelper.getAllShips().size() + 3), getContent("/rest/ships/count"));
+    }
+
+    //test2
+    @Test
+    public void importCsvTest() throws Exception {
+        String body = "name,planet,shipType,prodDate,isUsed,speed,crewSize\r\n"
+                + "\"Nebuchadnezzar, \"\"Neb\"\"\",Earth,TRANSPORT,32998274577071,true,0.5,9\r\n"
+                + "Galactica,Caprica,CRUISER,32998274577071,false,0.5,9\r\n"
+                + "Yamato,Earth,MILITARY,32998274577071,,0.77,2000\r\n"
+                + "Enterprise,Earth,MILITARY,32998274577071,yes,0.77,2000\r\n"
+                + "Voyager,Earth,MILITARY,32998274577071,FALSE,0.77,2000\r\n";
+
+        JsonNode result = importShips("CSV", body);
+
+        assertTrue("Неверное количество загруженных кораблей.", result.get("imported").asLong() == 3);
+        assertTrue("Строка с неизвестным типом должна быть отклонена.",
+                result.get("rejected").asLong() == 2 && result.get("errors").get(0).get("line").asLong() == 3);
+        assertTrue("Строка с неверным значением isUsed должна быть отклонена.",
+                result.get("errors").get(1).get("line").asLong() == 5);
+
+        ShipInfoTest quoted = mapper.readValue(getContent("/rest/ships/41"), ShipInfoTest.class);
+        assertEquals("Значение в кавычках должно быть прочитано целиком.", "Nebuchadnezzar, \"Neb\"", quoted.name);
+        assertTrue("Рейтинг должен быть рассчитан.", quoted.rating != null && quoted.isUsed);
+
+        ShipInfoTest unused = mapper.readValue(getContent("/rest/ships/42"), ShipInfoTest.class);
+        assertTrue("Пустое значение isUsed должно означать false.", unused.shipType == ShipType.MILITARY && !unused.isUsed);
+
+        ShipInfoTest upperCase = mapper.readValue(getContent("/rest/ships/43"), ShipInfoTest.class);
+        assertTrue("Значение isUsed должно читаться без учёта регистра.", "Voyager".equals(upperCase.name) && !upperCase.isUsed);
+    }
+
+    //test3
+    @Test
+    public void importExportedCsvTest() throws Exception {
+        String exported = getContent("/rest/ships/export?format=CSV");
+
+        JsonNode result = importShips("CSV", exported);
+
+        assertTrue("Все выгруженные корабли должны загрузиться.",
+                result.get("imported").asLong() == testsHelper.getAllShips().size() && result.get("rejected").asLong() == 0);
+        assertEquals("Корабли должны быть сохранены.",
+                String.valueOf(testsHelper.getAllShips().size() * 2), getContent("/rest/ships/count"));
+
+        JsonNode imports = mapper.readTree(getContent("/rest/ships/import"));
+        assertTrue("Импорт должен быть в списке последних.", imports.get(0).get("id").asLong() == result.get("id").asLong());
+    }
+
+    private JsonNode importShips(String format, String body) throws Exception {
+        String contentAsString = performAsync(mockMvc, post("/rest/ships/import?format=" + format)
+                .contentType(MediaType.TEXT_PLAIN)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return mapper.readTree(contentAsString);
+    }
+
+    private String getContent(String url) throws Exception {
+        return performAsync(mockMvc, get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
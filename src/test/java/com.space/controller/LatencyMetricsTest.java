@@ -0,0 +1,120 @@
+package com.space.controller;
+
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.metrics.HandlerLatencyMetrics;
+import com.space.metrics.HandlerLatencyMetrics.Phase;
+import com.space.metrics.LatencyHistogram;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.regex.Pattern;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class LatencyMetricsTest {
+
+    private WebApplicationContext context;
+    private HandlerLatencyMetrics metrics;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void phasesRecordedTest() throws Exception {
+        performAsync(mockMvc, get("/rest/ships/1")).andExpect(status().isOk());
+        long count = count("getShip", Phase.TOTAL);
+        long db = sum("getShip", Phase.DB);
+        long serialization = sum("getShip", Phase.SERIALIZATION);
+        long total = sum("getShip", Phase.TOTAL);
+
+        for (int i = 0; i < 3; i++) {
+            performAsync(mockMvc, get("/rest/ships/" + (i + 2))).andExpect(status().isOk());
+        }
+
+        assertEquals("Каждый запрос должен учитываться.", 3L, count("getShip", Phase.TOTAL) - count);
+        assertTrue("Запросы к базе должны учитываться.", sum("getShip", Phase.DB) > db);
+        assertTrue("Запись ответа должна учитываться.", sum("getShip", Phase.SERIALIZATION) > serialization);
+        long parts = sum("getShip", Phase.DB) + sum("getShip", Phase.SERVICE) + sum("getShip", Phase.SERIALIZATION);
+        assertTrue("Части не должны превышать общее время.", parts <= sum("getShip", Phase.TOTAL));
+        assertTrue("Общее время должно расти.", sum("getShip", Phase.TOTAL) > total);
+    }
+
+    //test2
+    @Test
+    public void synchronousHandlerRecordedTest() throws Exception {
+        long count = count("getRerate", Phase.TOTAL);
+
+        performAsync(mockMvc, get("/rest/ships/rerate")).andExpect(status().isOk());
+
+        assertEquals("Синхронный запрос должен учитываться.", 1L, count("getRerate", Phase.TOTAL) - count);
+    }
+
+    //test3
+    @Test
+    public void expositionTest() throws Exception {
+        performAsync(mockMvc, get("/rest/ships/count")).andExpect(status().isOk());
+
+        String text = performAsync(mockMvc, get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Должно быть описание метрики.", text.contains("# TYPE cosmoport_request_latency_seconds summary\n"));
+        for (String quantile : new String[]{"0.5", "0.99", "0.999"}) {
+            assertTrue("Должен быть квантиль " + quantile + ".", Pattern.compile(
+                    "(?m)^cosmoport_request_latency_seconds\\{handler=\"getCount\",phase=\"total\",quantile=\"" + quantile.replace(".", "\\.") + "\"} [0-9.E-]+$")
+                    .matcher(text).find());
+        }
+        assertTrue("Должно быть число запросов.", Pattern.compile(
+                "(?m)^cosmoport_request_latency_seconds_count\\{handler=\"getCount\",phase=\"db\"} [1-9][0-9]*$")
+                .matcher(text).find());
+        assertTrue("Должна быть сумма.", Pattern.compile(
+                "(?m)^cosmoport_request_latency_seconds_sum\\{handler=\"getCount\",phase=\"serialization\"} [0-9.E-]+$")
+                .matcher(text).find());
+    }
+
+    private long count(String handler, Phase phase) {
+        LatencyHistogram histogram = metrics.histogram(handler, phase);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    private long sum(String handler, Phase phase) {
+        LatencyHistogram histogram = metrics.histogram(handler, phase);
+        return histogram == null ? 0 : histogram.getSumNanos();
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setMetrics(HandlerLatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
@@ -0,0 +1,186 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.service.ShipQueryCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"cosmoport.cache.enabled=true", "cosmoport.cache.maxSize=3"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class QueryCacheTest {
+
+    private WebApplicationContext context;
+    private ShipQueryCache queryCache;
+    private MockMvc mockMvc;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //test.sql recreates the table behind the cache
+        queryCache.clear();
+    }
+
+    //test1
+    @Test
+    public void repeatedQueryIsServedFromCache() throws Exception {
+        JsonNode before = readCacheStats();
+
+        String first = getContent("/rest/ships?shipType=MILITARY&order=RATING&pageSize=3");
+        String second = getContent("/rest/ships?shipType=MILITARY&order=RATING&pageSize=3");
+
+        JsonNode after = readCacheStats();
+
+        assertEquals("Повторный запрос должен вернуть тот же результат.", first, second);
+        assertTrue("Первый запрос должен быть промахом кэша.",
+                after.get("misses").asLong() - before.get("misses").asLong() == 1);
+        assertTrue("Повторный запрос должен быть попаданием в кэш.",
+                after.get("hits").asLong() - before.get("hits").asLong() == 1);
+    }
+
+    //test2
+    @Test
+    public void editInvalidatesOnlyMatchingQueries() throws Exception {
+        List<ShipInfoTest> military = testsHelper.getShipInfosByShipType(ShipType.MILITARY, testsHelper.getAllShips());
+
+        assertEquals("Неверное количество кораблей до изменения.",
+                String.valueOf(military.size()), getContent("/rest/ships/count?shipType=MILITARY"));
+        getContent("/rest/ships/count?planet=Uranus");
+
+        //ship 1 is a MERCHANT from Mars
+        performAsync(mockMvc, post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"shipType\": \"MILITARY\"}"))
+                .andExpect(status().isOk());
+
+        JsonNode before = readCacheStats();
+
+        assertEquals("Кэш должен отражать изменение корабля.",
+                String.valueOf(military.size() + 1), getContent("/rest/ships/count?shipType=MILITARY"));
+        getContent("/rest/ships/count?planet=Uranus");
+
+        JsonNode after = readCacheStats();
+
+        assertTrue("Запрос, затронутый изменением, не должен браться из кэша.",
+                after.get("misses").asLong() - before.get("misses").asLong() == 1);
+        assertTrue("Запрос, не затронутый изменением, должен остаться в кэше.",
+                after.get("hits").asLong() - before.get("hits").asLong() == 1);
+    }
+
+    //test3
+    @Test
+    public void createAndDeleteInvalidateCount() throws Exception {
+        int all = testsHelper.getAllShips().size();
+        assertEquals("Неверное количество кораблей.", String.valueOf(all), getContent("/rest/ships/count"));
+
+        performAsync(mockMvc, post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш должен отражать создание корабля.", String.valueOf(all + 1), getContent("/rest/ships/count"));
+
+        performAsync(mockMvc, delete("/rest/ships/2")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш должен отражать удаление корабля.", String.valueOf(all), getContent("/rest/ships/count"));
+    }
+
+    //test4
+    @Test
+    public void cacheIsBounded() throws Exception {
+        JsonNode before = readCacheStats();
+
+        getContent("/rest/ships?pageNumber=0");
+        getContent("/rest/ships?pageNumber=1");
+        getContent("/rest/ships?pageNumber=2");
+        getContent("/rest/ships?pageNumber=3");
+
+        JsonNode after = readCacheStats();
+
+        assertTrue("Размер кэша не должен превышать заданный.", after.get("size").asInt() == 3);
+        assertTrue("Лишние записи должны вытесняться.",
+                after.get("evictions").asLong() - before.get("evictions").asLong() == 1);
+    }
+
+    //test5
+    @Test
+    public void ratingChangeKeepsUnaffectedCounts() throws Exception {
+        getContent("/rest/ships/count?shipType=MILITARY");
+        getContent("/rest/ships/count?minRating=2");
+        getContent("/rest/ships?shipType=MILITARY&pageSize=3");
+
+        queryCache.ratingsChanged(Collections.singletonMap(1L, 9.99));
+        JsonNode before = readCacheStats();
+
+        getContent("/rest/ships/count?shipType=MILITARY");
+        getContent("/rest/ships/count?minRating=2");
+        getContent("/rest/ships?shipType=MILITARY&pageSize=3");
+
+        JsonNode after = readCacheStats();
+
+        assertTrue("Количество без фильтра по рейтингу должно остаться в кэше.",
+                after.get("hits").asLong() - before.get("hits").asLong() == 1);
+        assertTrue("Количество с фильтром по рейтингу и страницы должны сбрасываться.",
+                after.get("misses").asLong() - before.get("misses").asLong() == 2);
+    }
+
+    private String getContent(String url) throws Exception {
+        return performAsync(mockMvc, get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode readCacheStats() throws Exception {
+        return mapper.readTree(getContent("/rest/metrics/cache"));
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setQueryCache(ShipQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+}
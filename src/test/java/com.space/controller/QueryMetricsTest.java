@@ -0,0 +1,134 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {"db.statistics.enabled=true", "db.slowQuery.enabled=true", "db.slowQuery.thresholdMs=0", "db.slowQuery.capacity=50"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class QueryMetricsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void filteredQueryLoggedTest() throws Exception {
+        JsonNode ships = read(get("/rest/ships?name=ab&pageSize=20"));
+
+        JsonNode query = findQuery("select", "like");
+        assertTrue("Запрос с фильтром должен попасть в журнал.", query != null);
+        assertTrue("Должна записываться форма параметра, а не значение.",
+                query.get("parameters").toString().contains("\"String(4)\"") && !query.toString().contains("%ab%"));
+        assertEquals("Должно записываться число строк.", (long) ships.size(), query.get("rows").asLong());
+        assertTrue("Должна записываться длительность.", query.get("durationMicros").asLong() >= 0);
+    }
+
+    //test2
+    @Test
+    public void batchInsertLoggedTest() throws Exception {
+        String batch = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.IS_USED_TRUE_JSON + "," + TestsHelper.IS_USED_FALSE_JSON + "]";
+        performAsync(mockMvc, post("/rest/ships/batch")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(batch))
+                .andExpect(status().isOk());
+
+        JsonNode insert = findQuery("insert into ship");
+        assertTrue("Пакетная вставка должна попасть в журнал.", insert != null);
+        assertEquals("Должен записываться размер пакета.", 3, insert.get("batchSize").asInt());
+        //rewriteBatchedStatements sends one multi-row insert and the driver gives no count per row
+        assertEquals("Неизвестное число строк должно записываться как -1.", -1L, insert.get("rows").asLong());
+    }
+
+    //test3
+    @Test
+    public void ringBufferBoundedTest() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            performAsync(mockMvc, get("/rest/ships/" + (i % 40 + 1))).andExpect(status().isOk());
+        }
+
+        JsonNode entries = read(get("/rest/metrics/slow-queries"));
+        assertEquals("Журнал не должен превышать заданный размер.", 50, entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue("Новые запросы должны идти первыми.",
+                    entries.get(i - 1).get("sequence").asLong() > entries.get(i).get("sequence").asLong());
+        }
+        assertEquals("Фильтр по длительности должен отсекать быстрые запросы.", 0,
+                read(get("/rest/metrics/slow-queries?minDurationMs=600000")).size());
+    }
+
+    //test4
+    @Test
+    public void hibernateStatisticsTest() throws Exception {
+        read(get("/rest/ships?planet=Earth"));
+
+        JsonNode statistics = read(get("/rest/metrics/hibernate"));
+        assertTrue("Статистика должна быть включена.", statistics.get("enabled").asBoolean());
+        assertTrue("Запросы должны учитываться.", statistics.get("queryExecutions").asLong() > 0);
+        boolean found = false;
+        for (JsonNode query : statistics.get("queries")) {
+            found |= query.get("query").asText().contains("from Ship") && query.get("executions").asLong() > 0;
+        }
+        assertTrue("Запрос Specification должен быть в статистике.", found);
+    }
+
+    // the newest logged statement containing every part
+    private JsonNode findQuery(String... parts) throws Exception {
+        for (JsonNode entry : read(get("/rest/metrics/slow-queries"))) {
+            String sql = entry.get("sql").asText().toLowerCase();
+            boolean matches = true;
+            for (String part : parts) {
+                matches &= sql.contains(part);
+            }
+            if (matches)
+                return entry;
+        }
+        return null;
+    }
+
+    private JsonNode read(RequestBuilder request) throws Exception {
+        return mapper.readTree(performAsync(mockMvc, request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+}
@@ -0,0 +1,163 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = {
+        "cosmoport.rating.referenceYear=3020",
+        "cosmoport.rerate.batchSize=5",
+        "cosmoport.rerate.maxRowsPerSecond=100"})
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class RerateShipsTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private JdbcTemplate jdbcTemplate;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    //test1
+    @Test
+    public void rerateAfterReferenceYearChangeTest() throws Exception {
+        int count = testsHelper.getAllShips().size();
+        Map<Long, Double> expected = expectedRatings();
+        Map<Long, Double> before = ratings();
+        long stale = before.keySet().stream().filter(id -> !before.get(id).equals(expected.get(id))).count();
+
+        JsonNode rerate = awaitRerate(mapper.readTree(send(post("/rest/ships/rerate"))));
+
+        assertEquals("Пересчёт должен завершиться.", "COMPLETED", rerate.get("state").asText());
+        assertTrue("Должны быть просмотрены все корабли.", rerate.get("rowsScanned").asLong() == count);
+        assertTrue("Должны быть обновлены только устаревшие рейтинги.", stale > 0 && rerate.get("rowsUpdated").asLong() == stale);
+        assertTrue("Прогресс должен быть полным.", rerate.get("progress").asDouble() == 1);
+        assertTrue("Скорость пересчёта должна быть ограничена.", rerate.get("rowsPerSecond").asDouble() <= 100 * 1.2);
+
+        assertEquals("Неверные рейтинги после пересчёта.", expected, ratings());
+
+        JsonNode repeated = awaitRerate(mapper.readTree(send(post("/rest/ships/rerate"))));
+        assertTrue("Повторный пересчёт не должен ничего менять.",
+                repeated.get("rowsScanned").asLong() == count && repeated.get("rowsUpdated").asLong() == 0);
+    }
+
+    //test2
+    @Test
+    public void rerateFromIdTest() throws Exception {
+        Map<Long, Double> before = ratings();
+
+        JsonNode rerate = awaitRerate(mapper.readTree(send(post("/rest/ships/rerate?fromId=30"))));
+
+        assertTrue("Пересчёт должен начаться после указанного id.",
+                rerate.get("fromId").asLong() == 30 && rerate.get("rowsScanned").asLong() == before.size() - 30);
+
+        Map<Long, Double> expected = expectedRatings();
+        Map<Long, Double> actual = ratings();
+        for (long id : actual.keySet()) {
+            Double rating = id <= 30 ? before.get(id) : expected.get(id);
+            assertEquals("Неверный рейтинг корабля " + id + ".", rating, actual.get(id));
+        }
+    }
+
+    //test3
+    @Test
+    public void pauseAndResumeTest() throws Exception {
+        send(post("/rest/ships/rerate"));
+        JsonNode paused = awaitRerate(mapper.readTree(send(delete("/rest/ships/rerate"))));
+
+        assertEquals("Пересчёт должен быть приостановлен.", "PAUSED", paused.get("state").asText());
+        assertTrue("Пересчёт должен остановиться до конца таблицы.",
+                paused.get("lastId").asLong() < paused.get("maxId").asLong());
+
+        JsonNode resumed = awaitRerate(mapper.readTree(send(post("/rest/ships/rerate"))));
+
+        assertEquals("Пересчёт должен продолжиться с места остановки.",
+                paused.get("lastId").asLong(), resumed.get("fromId").asLong());
+        assertEquals("Пересчёт должен завершиться.", "COMPLETED", resumed.get("state").asText());
+        assertTrue("Каждый корабль должен быть просмотрен один раз.",
+                paused.get("rowsScanned").asLong() + resumed.get("rowsScanned").asLong() == testsHelper.getAllShips().size());
+        assertEquals("Неверные рейтинги после пересчёта.", expectedRatings(), ratings());
+    }
+
+    private JsonNode awaitRerate(JsonNode rerate) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (rerate.get("state").asText().equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            rerate = mapper.readTree(send(get("/rest/ships/rerate")));
+        }
+        return rerate;
+    }
+
+    private String send(RequestBuilder request) throws Exception {
+        return performAsync(mockMvc, request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Map<Long, Double> ratings() {
+        Map<Long, Double> ratings = new HashMap<>();
+        jdbcTemplate.query("select id, rating from ship", rs -> {
+            ratings.put(rs.getLong(1), rs.getDouble(2));
+        });
+        return ratings;
+    }
+
+    private Map<Long, Double> expectedRatings() {
+        Map<Long, Double> ratings = new HashMap<>();
+        jdbcTemplate.query("select id, speed, isUsed, year(prodDate) from ship", rs -> {
+            double rating = (80 * rs.getDouble(2) * (rs.getBoolean(3) ? 0.5 : 1)) / (3020 - rs.getInt(4) + 1);
+            ratings.put(rs.getLong(1), new BigDecimal(rating).setScale(2, RoundingMode.HALF_UP).doubleValue());
+        });
+        return ratings;
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,82 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.WebConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ShipJsonSerializerTest {
+
+    private ObjectMapper mapper = new WebConfig().objectMapper();
+    private ObjectMapper reflective = reflectiveMapper();
+
+    //test1
+    @Test
+    public void sameJsonAsReflectiveTest() throws Exception {
+        Random random = new Random(7);
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Ship ship = new Ship();
+            ship.setId((long) i);
+            ship.setName("Ship \"" + i + "\" Корабль \\ \n");
+            ship.setPlanet("Planet " + random.nextInt(100));
+            ship.setShipType(ShipType.values()[i % ShipType.values().length]);
+            ship.setProdDate(new Date(26192246400000L + (long) (random.nextDouble() * 31556995200000L)));
+            ship.setUsed(random.nextBoolean());
+            ship.setSpeed(Math.round(random.nextDouble() * 100) / 100.0);
+            ship.setCrewSize(random.nextInt(9999) + 1);
+            ship.setRating(random.nextDouble() * 80);
+            ship.setVersion((long) i);
+            ships.add(ship);
+        }
+
+        TypeReference<List<Ship>> type = new TypeReference<List<Ship>>() {
+        };
+        assertEquals("Сериализатор должен выдавать тот же JSON.",
+                reflective.writerFor(type).writeValueAsString(ships), mapper.writerFor(type).writeValueAsString(ships));
+    }
+
+    //test2
+    @Test
+    public void nullFieldsTest() throws Exception {
+        Ship ship = new Ship();
+
+        assertEquals("Пустые поля должны записываться как null.",
+                reflective.writeValueAsString(ship), mapper.writeValueAsString(ship));
+    }
+
+    //test3
+    @Test
+    public void hundredthsMatchDoubleToStringTest() {
+        char[] digits = new char[16];
+        for (long hundredths = 0; hundredths < ShipJsonSerializer.MAX_HUNDREDTHS; hundredths++) {
+            double value = hundredths / 100.0;
+            int length = ShipJsonSerializer.formatHundredths(value, digits);
+            assertEquals("Неверная запись числа.", Double.toString(value), new String(digits, 0, length));
+        }
+
+        for (double value : new double[]{-0.0, -1.5, 0.125, 1.0 / 3, 1e5, Double.NaN, Double.POSITIVE_INFINITY}) {
+            assertEquals("Число не из сотых должно записываться через Double.toString.",
+                    -1, ShipJsonSerializer.formatHundredths(value, digits));
+        }
+    }
+
+    private static ObjectMapper reflectiveMapper() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return objectMapper;
+    }
+}
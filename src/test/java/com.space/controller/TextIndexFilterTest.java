@@ -0,0 +1,152 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.MyWebAppInit;
+import com.space.config.WebConfig;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.controller.utils.TestsHelper;
+import com.space.service.ShipTextIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.space.controller.utils.TestsHelper.performAsync;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {TestDataSourceConfig.class, MyWebAppInit.class, WebConfig.class})
+@WebAppConfiguration
+@TestPropertySource(properties = "cosmoport.textIndex.enabled=true")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class TextIndexFilterTest {
+
+    private WebApplicationContext context;
+    private MockMvc mockMvc;
+    private ShipTextIndex textIndex;
+    private JdbcTemplate jdbcTemplate;
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //test.sql recreates the table behind the service
+        textIndex.rebuild();
+    }
+
+    //test1
+    @Test
+    public void filterByNameAndPlanetThroughIndex() throws Exception {
+        List<ShipInfoTest> actual = getShips("/rest/ships?name=ERO&planet=turn&pageSize=40");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPlanet("turn",
+                testsHelper.getShipInfosByName("ero", testsHelper.getAllShips()));
+
+        assertTrue("Поиск по подстроке через индекс должен совпадать с поиском LIKE.", actual.equals(expected));
+    }
+
+    //test2
+    @Test
+    public void filterByShortAndMissingSubstrings() throws Exception {
+        List<ShipInfoTest> actual = getShips("/rest/ships?name=ra&pageSize=40");
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByName("ra", testsHelper.getAllShips());
+        assertTrue("Поиск по подстроке короче триграммы должен работать без индекса.", actual.equals(expected));
+
+        assertTrue("Поиск по отсутствующей подстроке должен возвращать пустой список.",
+                getShips("/rest/ships?name=zzzz").isEmpty());
+    }
+
+    //test3
+    @Test
+    public void indexFollowsCreateEditDelete() throws Exception {
+        performAsync(mockMvc, post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        assertTrue("Созданный корабль должен находиться по имени.", getShips("/rest/ships?name=3456").size() == 1);
+
+        performAsync(mockMvc, post("/rest/ships/41")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Rocinante\"}"))
+                .andExpect(status().isOk());
+        assertTrue("После переименования корабль не должен находиться по старому имени.", getShips("/rest/ships?name=3456").isEmpty());
+        assertTrue("После переименования корабль должен находиться по новому имени.", getShips("/rest/ships?name=cinan").size() == 1);
+
+        performAsync(mockMvc, delete("/rest/ships/41"))
+                .andExpect(status().isOk());
+        assertTrue("Удаленный корабль не должен находиться по имени.", getShips("/rest/ships?name=cinan").isEmpty());
+    }
+
+    //test4
+    @Test
+    public void filterByNonAsciiSubstringsLikeCollation() throws Exception {
+        for (String name : new String[]{"Straße", "Łódź", "Звёзды", "Crème"}) {
+            jdbcTemplate.update("insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                    + "select ?, planet, shipType, prodDate, isUsed, speed, crewSize, rating from ship where id = 1", name);
+        }
+        textIndex.rebuild();
+
+        for (String substring : new String[]{"stras", "lodz", "łodz", "звезд", "ЗВЁЗ", "creme", "CRÈ"}) {
+            String contentAsString = performAsync(mockMvc, get("/rest/ships")
+                    .param("name", substring)
+                    .param("pageSize", "50")
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<ShipInfoTest> ships = mapper.readValue(contentAsString, typeReference);
+            List<Long> actual = ships.stream().map(ship -> ship.id).collect(Collectors.toList());
+            List<Long> expected = jdbcTemplate.queryForList(
+                    "select id from ship where name like ? order by id", Long.class, "%" + substring + "%");
+
+            assertTrue("Поиск по подстроке '" + substring + "' через индекс должен совпадать с поиском LIKE.", actual.equals(expected));
+        }
+    }
+
+    private List<ShipInfoTest> getShips(String url) throws Exception {
+        String contentAsString = performAsync(mockMvc, get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return mapper.readValue(contentAsString, typeReference);
+    }
+
+    @Autowired
+    public void setContext(WebApplicationContext context) {
+        this.context = context;
+    }
+
+    @Autowired
+    public void setTextIndex(ShipTextIndex textIndex) {
+        this.textIndex = textIndex;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static com.space.controller.utils.TestsHelper.performAsync;
 import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -46,7 +47,7 @@ public class UpdateShipTest {
     //test1
     @Test
     public void updateShipIdZeroTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/0")
+        performAsync(mockMvc, post("/rest/ships/0")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NORMAL_JSON))
@@ -56,7 +57,7 @@ public class UpdateShipTest {
     //test2
     @Test
     public void updateShipNotExistTest() throws Exception {
-        mockMvc.perform(post("/rest/ships/415")
+        performAsync(mockMvc, post("/rest/ships/415")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NORMAL_JSON))
@@ -68,7 +69,7 @@ public class UpdateShipTest {
     public void updateShipInvalidNameTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.EMPTY_NAME_JSON))
@@ -80,7 +81,7 @@ public class UpdateShipTest {
     public void updateShipInvalidProdDateTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NEGATIVE_PROD_DATE_JSON))
@@ -92,7 +93,7 @@ public class UpdateShipTest {
     public void updateShipInvalidCrewSizeTest() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.TOO_BIG_CREW_SIZE_JSON))
@@ -104,7 +105,7 @@ public class UpdateShipTest {
     public void updateShipInvalidCrewSizeTest2() throws Exception {
         ShipInfoTest shipInfoTest = testsHelper.getShipInfosById(1);
 
-        mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(TestsHelper.NEGATIVE_CREW_SIZE_JSON))
@@ -117,7 +118,7 @@ public class UpdateShipTest {
         ShipInfoTest expected = mapper.readValue(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 5), ShipInfoTest.class);
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/5")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/5")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 8L)))
@@ -135,7 +136,7 @@ public class UpdateShipTest {
     public void updateShipEmptyBodyTest() throws Exception {
         ShipInfoTest expected = testsHelper.getShipInfosById(17);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/17")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/17")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content("{}"))
@@ -153,7 +154,7 @@ public class UpdateShipTest {
         ShipInfoTest expected = mapper.readValue(String.format(TestsHelper.NORMAL_JSON_WITH_ID, 23), ShipInfoTest.class);
         expected.rating = 12.8;
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/23")
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/23")
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.NORMAL_JSON_WITH_RATING, "9")))
@@ -178,7 +179,7 @@ public class UpdateShipTest {
         ShipInfoTest expected = new ShipInfoTest(shipInfoTest.id, newName, shipInfoTest.planet, shipInfoTest.shipType, shipInfoTest.prodDate,
                 newIsUsed, newSpeed, newCrewSize, 6.67);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.JSON_SKELETON, newName, String.valueOf(newIsUsed), String.valueOf(newSpeed), String.valueOf(newCrewSize))))
@@ -202,7 +203,7 @@ public class UpdateShipTest {
         ShipInfoTest expected = new ShipInfoTest(shipInfoTest.id, shipInfoTest.name, newPlanet, ShipType.MILITARY, 32556844329665L,
                 shipInfoTest.isUsed, shipInfoTest.speed, shipInfoTest.crewSize, 2.48);
 
-        ResultActions resultActions = mockMvc.perform(post("/rest/ships/" + shipInfoTest.id)
+        ResultActions resultActions = performAsync(mockMvc, post("/rest/ships/" + shipInfoTest.id)
                 .contentType(MediaType.APPLICATION_JSON_UTF8)
                 .accept(MediaType.APPLICATION_JSON_UTF8)
                 .content(String.format(TestsHelper.JSON_SKELETON_2, newPlanet, String.valueOf(newShipType), String.valueOf(newProdDate))))
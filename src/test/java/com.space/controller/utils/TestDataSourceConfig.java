@@ -1,11 +1,25 @@
 package com.space.controller.utils;
 
+import com.space.config.AppConfig;
+import com.space.metrics.EntityCacheMetrics;
+import com.space.metrics.HandlerLatencyMetrics;
+import com.space.metrics.HibernateMetrics;
+import com.space.metrics.JdbcTimeListener;
+import com.space.metrics.PoolMetrics;
+import com.space.metrics.SlowQueryDataSource;
+import com.space.metrics.SlowQueryLog;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.util.DriverDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
@@ -14,6 +28,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.SharedCacheMode;
 import javax.sql.DataSource;
 import java.util.Properties;
 
@@ -23,11 +38,20 @@ import java.util.Properties;
 @EnableJpaRepositories(basePackages = "com.space.repository")
 public class TestDataSourceConfig {
 
+    private Environment env;
+
+    @Autowired
+    public void setEnv(Environment env) {
+        this.env = env;
+    }
+
     @Bean
+    @DependsOn("flyway")
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
+        em.setSharedCacheMode(SharedCacheMode.ENABLE_SELECTIVE);
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
@@ -36,16 +60,62 @@ public class TestDataSourceConfig {
         return em;
     }
 
+    //the test database is rebuilt by the application's migrations, test.sql only reloads the rows
+    @Bean
+    public Flyway flyway() {
+        Flyway flyway = AppConfig.migrations(dataSource()).load();
+        flyway.clean();
+        flyway.migrate();
+        return flyway;
+    }
+
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/test?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("cosmoport-test");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl("jdbc:mysql://localhost:3306/test?serverTimezone=UTC");
+        config.setUsername("root");
+        config.setPassword("root");
+        config.setMinimumIdle(1);
+        config.setMaximumPoolSize(4);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        if (env.getProperty("db.slowQuery.enabled", Boolean.class, false)) {
+            config.setDataSource(new SlowQueryDataSource(new DriverDataSource(config.getJdbcUrl(), config.getDriverClassName(),
+                    config.getDataSourceProperties(), config.getUsername(), config.getPassword()), slowQueryLog()));
+        }
+        config.setMetricsTrackerFactory(poolMetrics());
+        return new HikariDataSource(config);
     }
 
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+
+    @Bean
+    public EntityCacheMetrics entityCacheMetrics() {
+        return new EntityCacheMetrics();
+    }
+
+    @Bean
+    public HibernateMetrics hibernateMetrics() {
+        return new HibernateMetrics();
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog() {
+        return new SlowQueryLog(env.getProperty("db.slowQuery.thresholdMs", Long.class, 500L),
+                env.getProperty("db.slowQuery.capacity", Integer.class, 100));
+    }
+
+    @Bean
+    public HandlerLatencyMetrics handlerLatencyMetrics() {
+        return new HandlerLatencyMetrics();
+    }
 
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
@@ -65,6 +135,18 @@ public class TestDataSourceConfig {
         properties.setProperty("hibernate.hbm2ddl.auto", "none");
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
 
+        //test.sql recreates the table behind Hibernate, so only tests that clear the cache enable it
+        String secondLevelCache = env.getProperty("db.secondLevelCache.enabled", "false");
+        properties.setProperty("hibernate.cache.use_second_level_cache", secondLevelCache);
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+        properties.setProperty("hibernate.javax.cache.uri", "ehcache.xml");
+        boolean statistics = env.getProperty("db.statistics.enabled", Boolean.class, false) || Boolean.parseBoolean(secondLevelCache);
+        properties.setProperty("hibernate.generate_statistics", Boolean.toString(statistics));
+
+        //adds statement time to a per-thread total for the request latency metrics
+        properties.setProperty("hibernate.session.events.auto", JdbcTimeListener.class.getName());
+
         return properties;
     }
 }
\ No newline at end of file
@@ -2,10 +2,17 @@ package com.space.controller.utils;
 
 import com.space.controller.ShipOrder;
 import com.space.model.ShipType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 
 public class TestsHelper {
     public final static String NORMAL_JSON =
@@ -164,6 +171,20 @@ public class TestsHelper {
                     "\"prodDate\": %s" +
                     "}";
 
+    /**
+     * Performs the request and, when the handler answered asynchronously, the dispatch
+     * that writes its result, so expectations see the final response either way.
+     */
+    public static ResultActions performAsync(MockMvc mockMvc, RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        if (!result.getRequest().isAsyncStarted())
+            return actions;
+
+        result.getAsyncResult(TimeUnit.SECONDS.toMillis(60));
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     private List<ShipInfoTest> allShips = new ArrayList<>();
 
     public TestsHelper() {
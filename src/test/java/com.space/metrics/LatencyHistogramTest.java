@@ -0,0 +1,60 @@
+package com.space.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class LatencyHistogramTest {
+
+    //test1
+    @Test
+    public void bucketsCoverEveryValueTest() {
+        long previous = -1;
+        for (int index = 0; index < LatencyHistogram.BUCKETS; index++) {
+            long highest = LatencyHistogram.highestValue(index);
+            long lowest = previous + 1;
+            assertEquals("Корзины должны идти подряд.", index, LatencyHistogram.index(lowest));
+            assertEquals("Корзины должны идти подряд.", index, LatencyHistogram.index(highest));
+            assertTrue("Корзина должна быть не шире 1/32 значения.", highest - lowest <= Math.max(lowest / 32, 0));
+            previous = highest;
+        }
+    }
+
+    //test2
+    @Test
+    public void quantilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals("Пустая гистограмма должна давать 0.", 0L, histogram.valueAtQuantile(0.5));
+
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        assertEquals("Неверное число значений.", 10000L, histogram.getCount());
+        assertEquals("Неверная сумма.", TimeUnit.MICROSECONDS.toNanos(10000L * 10001 / 2), histogram.getSumNanos());
+        assertNear(5000, histogram.valueAtQuantile(0.5));
+        assertNear(9900, histogram.valueAtQuantile(0.99));
+        assertNear(9990, histogram.valueAtQuantile(0.999));
+        assertEquals("Квантиль не должен превышать максимум.", 10000L, histogram.valueAtQuantile(1));
+    }
+
+    //test3
+    @Test
+    public void outOfRangeValuesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(TimeUnit.DAYS.toNanos(1));
+
+        assertEquals("Отрицательное значение должно считаться нулём.", 0L, histogram.valueAtQuantile(0.5));
+        assertTrue("Слишком большое значение должно попадать в последнюю корзину.",
+                histogram.valueAtQuantile(1) == LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1));
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue("Квантиль " + actual + " должен быть около " + expected + ".",
+                actual >= expected && actual <= expected + expected / 32);
+    }
+}
@@ -0,0 +1,31 @@
+package com.space.metrics;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class SlowQueryLogTest {
+
+    //test1
+    @Test
+    public void ringKeepsNewestTest() {
+        SlowQueryLog log = new SlowQueryLog(0, 2);
+        for (int i = 1; i <= 3; i++) {
+            log.add("select " + i, Collections.emptyList(), 0, 1000);
+        }
+
+        List<SlowQueryLog.SlowQuery> entries = log.entries(0);
+        assertEquals("Должны храниться только последние запросы.", 2, entries.size());
+        assertEquals("Новые запросы должны идти первыми.", "select 3", entries.get(0).getSql());
+        assertEquals("Неверное число запросов.", 3L, log.getLogged());
+    }
+
+    //test2
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityTest() {
+        new SlowQueryLog(500, 0);
+    }
+}
@@ -0,0 +1,272 @@
+package com.space.repository;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipRequestExecutor;
+import com.space.metrics.PoolMetrics;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipFilter;
+import com.space.service.ShipQueryCache;
+import com.space.service.ShipService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ReadWriteRoutingTest.EmbeddedReplicasConfig.class)
+public class ReadWriteRoutingTest {
+
+    private static final long READ_YOUR_WRITES_MS = 300;
+    private static final int REPLICA_SHIPS = 5;
+
+    private ShipService service;
+    private ShipQueryCache queryCache;
+    private ShipRequestExecutor executor;
+    private ReadWriteRoutingDataSource dataSource;
+
+    private JdbcTemplate primary;
+    private List<JdbcTemplate> replicas = new ArrayList<>();
+
+    @Before
+    public void setup() throws InterruptedException {
+        primary = new JdbcTemplate(dataSource.getPrimary());
+        primary.update("delete from ship");
+        //the replicas do not replicate, each one is told apart by its number of ships
+        for (int i = 0; i < dataSource.getReplicas().size(); i++) {
+            JdbcTemplate replica = new JdbcTemplate(dataSource.getReplicas().get(i));
+            replica.update("delete from ship");
+            //ids far from those the primary hands out, so a lookup of a new ship misses in a replica
+            for (int ship = 0; ship < REPLICA_SHIPS + i; ship++) {
+                replica.update("insert into ship(id, name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                        + "values (?, 'Replica " + i + "', 'Mars', 'MERCHANT', '2995-01-01', false, 0.5, 10, 1.0)", 1_000_000 + ship);
+            }
+            replicas.add(replica);
+        }
+        //outlasts the read-your-writes window of the previous test's writes
+        Thread.sleep(READ_YOUR_WRITES_MS);
+    }
+
+    @After
+    public void reset() {
+        queryCache.setEnabled(false);
+        queryCache.clear();
+        ReadWriteRoutingDataSource.setReadYourWrites(false);
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    //test1
+    @Test
+    public void readsGoToReplicasInTurnTest() {
+        long first = service.countShips(new ShipFilter());
+        long second = service.countShips(new ShipFilter());
+
+        assertTrue("Чтения должны идти в реплики по очереди.",
+                Arrays.asList(first, second).containsAll(Arrays.asList(5L, 6L)));
+        assertEquals("Страница должна читаться из реплики.", "Replica",
+                service.findShips(new ShipFilter(), ShipOrder.ID, 0, 3).getContent().get(0).getName().substring(0, 7));
+    }
+
+    //test2
+    @Test
+    public void writesGoToPrimaryTest() {
+        Long id = service.createShip(newShip()).getId();
+        assertEquals("Новый корабль должен попасть в основную базу.", 1,
+                primary.queryForObject("select count(*) from ship", Integer.class));
+
+        Ship edit = new Ship();
+        edit.setPlanet("Earth");
+        service.editShip(id, edit, null);
+        assertEquals("Изменение должно попасть в основную базу.", "Earth",
+                primary.queryForObject("select planet from ship where id = ?", String.class, id));
+
+        //the ship exists only in the primary, a lookup in a replica would not find it
+        service.deleteById(id);
+        assertEquals("Удаление должно пройти в основной базе.", 0,
+                primary.queryForObject("select count(*) from ship", Integer.class));
+        for (int i = 0; i < replicas.size(); i++) {
+            assertEquals("Реплики не должны меняться.", REPLICA_SHIPS + i,
+                    replicas.get(i).queryForObject("select count(*) from ship where planet = 'Mars'", Integer.class));
+        }
+    }
+
+    //test3
+    @Test
+    public void readYourWritesTest() throws InterruptedException {
+        service.createShip(newShip());
+
+        //two reads, either would have found a replica without read-your-writes
+        ReadWriteRoutingDataSource.setReadYourWrites(true);
+        assertEquals("После записи чтение должно идти в основную базу.", 1L, service.countShips(new ShipFilter()));
+        assertEquals("После записи чтение должно идти в основную базу.", 1L, service.countShips(new ShipFilter()));
+
+        Thread.sleep(READ_YOUR_WRITES_MS);
+        assertTrue("По истечении окна чтение должно идти в реплику.", service.countShips(new ShipFilter()) >= REPLICA_SHIPS);
+
+        ReadWriteRoutingDataSource.setReadYourWrites(false);
+        service.createShip(newShip());
+        assertTrue("Без read-your-writes чтение должно идти в реплику.", service.countShips(new ShipFilter()) >= REPLICA_SHIPS);
+    }
+
+    //test4
+    @Test
+    public void executorPassesReadYourWritesTest() throws Exception {
+        assertEquals("Пул должен быть размером со все пулы соединений.", 6, executor.stats().getThreads());
+        assertEquals("Записи должны выполняться в пуле размером с пул основной базы.", 2, executor.stats().getWriteThreads());
+        service.createShip(newShip());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Read-Your-Writes", "true");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        DeferredResult<Long> result = executor.submit(() -> service.countShips(new ShipFilter()));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("Запрос с заголовком должен читать основную базу.", 1L, result.getResult());
+    }
+
+    //test5
+    @Test
+    public void cacheNotFilledFromLaggingReplicaTest() throws InterruptedException {
+        queryCache.setEnabled(true);
+        long replicaCount = service.countShips(new ShipFilter());
+        assertEquals("Чтение из реплики должно кэшироваться.", replicaCount, service.countShips(new ShipFilter()));
+
+        service.createShip(newShip());
+        //the replica does not have the new ship, its answer must not replace the dropped entry
+        assertTrue("Чтение должно идти в реплику.", service.countShips(new ShipFilter()) >= REPLICA_SHIPS);
+        assertEquals("Пока реплики могут отставать, кэш не должен заполняться.", 0, queryCache.stats().getSize());
+
+        ReadWriteRoutingDataSource.setReadYourWrites(true);
+        assertEquals("После записи чтение должно видеть новый корабль.", 1L, service.countShips(new ShipFilter()));
+        ReadWriteRoutingDataSource.setReadYourWrites(false);
+
+        Thread.sleep(READ_YOUR_WRITES_MS);
+        service.countShips(new ShipFilter());
+        assertEquals("По истечении окна кэш должен заполняться снова.", 1, queryCache.stats().getSize());
+    }
+
+    private static Ship newShip() {
+        Ship ship = new Ship();
+        ship.setName("Orion III");
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(32367628329660L));
+        ship.setUsed(true);
+        ship.setSpeed(0.82);
+        ship.setCrewSize(617);
+        return ship;
+    }
+
+    @Autowired
+    public void setService(ShipService service) {
+        this.service = service;
+    }
+
+    @Autowired
+    public void setQueryCache(ShipQueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    @Autowired
+    public void setExecutor(ShipRequestExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = (ReadWriteRoutingDataSource) dataSource;
+    }
+
+    /**
+     * A primary and two replicas in embedded H2 databases, each behind a pool of two connections.
+     */
+    @Configuration
+    @EnableTransactionManagement
+    @ComponentScan("com.space.service")
+    @EnableJpaRepositories(basePackages = "com.space.repository")
+    static class EmbeddedReplicasConfig {
+
+        @Bean
+        public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+            LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+            em.setDataSource(dataSource());
+            em.setPackagesToScan("com.space.model");
+            em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+
+            Properties properties = new Properties();
+            properties.setProperty("hibernate.hbm2ddl.auto", "none");
+            properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            //lookups by id have to reach a database
+            properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+            em.setJpaProperties(properties);
+            return em;
+        }
+
+        @Bean
+        public DataSource dataSource() {
+            List<DataSource> replicas = Arrays.asList(pool("routing-replica-1"), pool("routing-replica-2"));
+            return new ReadWriteRoutingDataSource(pool("routing-primary"), replicas, READ_YOUR_WRITES_MS);
+        }
+
+        @Bean
+        public ShipRequestExecutor shipRequestExecutor() {
+            return new ShipRequestExecutor();
+        }
+
+        @Bean
+        public PoolMetrics poolMetrics() {
+            return new PoolMetrics();
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+        private static DataSource pool(String name) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+            config.setMaximumPoolSize(2);
+            HikariDataSource dataSource = new HikariDataSource(config);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("embedded-schema.sql")), dataSource);
+            return dataSource;
+        }
+    }
+}
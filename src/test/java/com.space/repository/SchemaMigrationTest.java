@@ -0,0 +1,74 @@
+package com.space.repository;
+
+import com.space.config.AppConfig;
+import org.flywaydb.core.Flyway;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class SchemaMigrationTest {
+
+    private static final String SCHEMA = "cosmoport_migration_test";
+
+    private JdbcTemplate server;
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() {
+        server = new JdbcTemplate(new DriverManagerDataSource("jdbc:mysql://localhost:3306/?serverTimezone=UTC", "root", "root"));
+        server.execute("DROP DATABASE IF EXISTS " + SCHEMA);
+        server.execute("CREATE DATABASE " + SCHEMA + " COLLATE utf8_general_ci");
+
+        dataSource = new DriverManagerDataSource("jdbc:mysql://localhost:3306/" + SCHEMA + "?serverTimezone=UTC", "root", "root");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @After
+    public void dropSchema() {
+        server.execute("DROP DATABASE IF EXISTS " + SCHEMA);
+    }
+
+    //test1
+    @Test
+    public void emptySchemaMigratedTest() {
+        Flyway flyway = AppConfig.migrations(dataSource).load();
+
+        assertEquals("Должны примениться все миграции.", 3, flyway.migrate());
+        assertIndexes();
+        assertEquals("Повторный запуск не должен ничего менять.", 0, flyway.migrate());
+    }
+
+    //test2
+    @Test
+    public void initSqlSchemaBaselinedTest() {
+        //the table as init.sql creates it, with one ship and no history
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT(20) NOT NULL AUTO_INCREMENT, name VARCHAR(50) NULL, planet VARCHAR(50) NULL, "
+                + "shipType VARCHAR(9) NULL, prodDate date NULL, isUsed BIT(1) NULL, speed DOUBLE NULL, crewSize INT(4) NULL, "
+                + "rating DOUBLE NULL, PRIMARY KEY (id)) ENGINE = InnoDB");
+        jdbcTemplate.update("insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) "
+                + "values ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)");
+
+        assertEquals("Должны примениться миграции после первой.", 2, AppConfig.migrations(dataSource).load().migrate());
+        assertIndexes();
+        assertEquals("Данные должны сохраниться.", 1, jdbcTemplate.queryForObject("select count(*) from ship", Integer.class));
+        assertEquals("Существующие корабли должны получить версию.", 0L,
+                jdbcTemplate.queryForObject("select version from ship", Long.class));
+    }
+
+    private void assertIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList("select distinct index_name from information_schema.statistics "
+                + "where table_schema = ? and table_name = 'ship'", String.class, SCHEMA);
+        for (String index : new String[]{"ship_speed", "ship_prod_date", "ship_rating", "ship_crew_size",
+                "ship_type_used_speed", "ship_type_used_prod_date", "ship_type_used_rating"}) {
+            assertTrue("Должен быть индекс " + index + ".", indexes.contains(index));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.space.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.WebConfig;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.model.ShipView;
+import org.hibernate.Session;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = TestDataSourceConfig.class)
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ShipProjectionTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private ShipRepository shipRepository;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    private ObjectMapper mapper = new WebConfig().objectMapper();
+
+    //test1
+    @Test
+    public void pageMatchesEntitiesTest() throws Exception {
+        Specification<Ship> planet = (root, query, cb) -> cb.like(root.get("planet"), "%a%");
+        PageRequest pageable = PageRequest.of(1, 5, Sort.by("speed").and(Sort.by("id")));
+
+        Page<Ship> entities = shipRepository.findAll(planet, pageable);
+        AtomicInteger managed = new AtomicInteger();
+        Page<ShipView> views = transactionTemplate.execute(status -> {
+            Page<ShipView> page = shipRepository.findPage(planet, pageable);
+            managed.set(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+            return page;
+        });
+
+        assertTrue("Страница не должна создавать управляемые сущности.", managed.get() == 0);
+        assertEquals("Количество должно совпадать с запросом сущностей.", entities.getTotalElements(), views.getTotalElements());
+        assertEquals("Страница должна давать тот же JSON, что и сущности.",
+                mapper.writeValueAsString(entities.getContent()), mapper.writeValueAsString(views.getContent()));
+    }
+
+    //test2
+    @Test
+    public void nullColumnsTest() throws Exception {
+        jdbcTemplate.update("update ship set prodDate = null, isUsed = null, speed = null, crewSize = null, rating = null, "
+                + "name = null, shipType = null where id = 1");
+        Specification<Ship> first = (root, query, cb) -> cb.equal(root.get("id"), 1L);
+
+        List<ShipView> views = shipRepository.findFirst(first, Sort.by("id"), 1);
+
+        assertEquals("Пустые поля должны записываться как null.",
+                mapper.writeValueAsString(shipRepository.findById(1L).orElse(null)), mapper.writeValueAsString(views.get(0)));
+    }
+
+    //test3
+    @Test
+    public void scrollLoadsNoEntitiesTest() throws Exception {
+        List<ShipView> views = new ArrayList<>();
+        AtomicInteger managed = new AtomicInteger();
+        transactionTemplate.execute(status -> {
+            shipRepository.scroll((root, query, cb) -> null, Sort.by("id"), 10, view -> {
+                views.add(view);
+                managed.accumulateAndGet(entityManager.unwrap(Session.class).getStatistics().getEntityCount(), Math::max);
+            });
+            return null;
+        });
+
+        assertTrue("Выгрузка не должна создавать управляемые сущности.", managed.get() == 0);
+        assertEquals("Выгрузка должна давать тот же JSON, что и сущности.",
+                mapper.writeValueAsString(shipRepository.findAll(Sort.by("id"))), mapper.writeValueAsString(views));
+    }
+
+    @Autowired
+    public void setShipRepository(ShipRepository shipRepository) {
+        this.shipRepository = shipRepository;
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Autowired
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
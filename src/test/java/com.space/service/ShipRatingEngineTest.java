@@ -0,0 +1,127 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ShipRatingEngineTest {
+
+    private ShipRatingEngine engine = new ShipRatingEngine();
+
+    //test1
+    @Test
+    public void rateMatchesCalendarAndBigDecimalTest() {
+        Calendar cal = Calendar.getInstance();
+        for (int year = ShipRatingEngine.FIRST_YEAR; year <= ShipRatingEngine.LAST_YEAR; year++) {
+            cal.clear();
+            cal.set(year, Calendar.JANUARY, 1);
+            long yearStart = cal.getTimeInMillis();
+            cal.add(Calendar.YEAR, 1);
+            long yearEnd = cal.getTimeInMillis() - 1;
+
+            for (long time : new long[]{yearStart, (yearStart + yearEnd) / 2, yearEnd}) {
+                for (int speed = 1; speed <= 99; speed++) {
+                    for (boolean used : new boolean[]{true, false}) {
+                        Ship ship = ship(speed / 100.0, used, new Date(time));
+                        assertEquals("Рейтинг должен совпадать с прежним расчётом для " + new Date(time),
+                                legacyRating(ship), engine.rate(ship));
+                    }
+                }
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void round2MatchesBigDecimalTest() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1_000_000; i++) {
+            double value = random.nextDouble() * 100;
+            assertRounding(value);
+        }
+
+        //values right at and around the x.xx5 ties
+        for (int k = 0; k < 100_000; k++) {
+            double tie = (k + 0.5) / 100;
+            assertRounding(tie);
+            assertRounding(Math.nextUp(tie));
+            assertRounding(Math.nextDown(tie));
+        }
+
+        assertRounding(0.0);
+        assertRounding(1.005);
+        assertRounding(0.125);
+        assertRounding(2.675);
+    }
+
+    //test3
+    @Test
+    public void yearOfMatchesCalendarTest() {
+        Random random = new Random(11);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(2700, Calendar.JANUARY, 1);
+        long from = cal.getTimeInMillis();
+        cal.set(3100, Calendar.JANUARY, 1);
+        long to = cal.getTimeInMillis();
+
+        for (int i = 0; i < 100_000; i++) {
+            Date date = new Date(from + (long) (random.nextDouble() * (to - from)));
+            cal.setTime(date);
+            assertTrue("Год должен совпадать с Calendar для " + date, engine.yearOf(date) == cal.get(Calendar.YEAR));
+        }
+    }
+
+    //test4
+    @Test
+    public void rateAllMatchesRateTest() {
+        Random random = new Random(3);
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            ships.add(ship((1 + random.nextInt(99)) / 100.0, random.nextBoolean(),
+                    new Date(26200000000000L + (long) (random.nextDouble() * 6900000000000L))));
+        }
+        ships.add(ship(0.5, null, new Date(32998274577071L)));
+
+        engine.rateAll(ships);
+
+        for (Ship ship : ships.subList(0, ships.size() - 1)) {
+            assertEquals("Пакетный расчёт должен совпадать с одиночным.", legacyRating(ship), ship.getRating());
+        }
+        assertTrue("Без входных данных рейтинг не рассчитывается.", ships.get(ships.size() - 1).getRating() == null);
+    }
+
+    private void assertRounding(double value) {
+        double expected = new BigDecimal(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+        assertTrue("Округление должно совпадать с BigDecimal для " + new BigDecimal(value),
+                ShipRatingEngine.round2(value) == expected);
+    }
+
+    private Ship ship(double speed, Boolean used, Date prodDate) {
+        Ship ship = new Ship();
+        ship.setSpeed(speed);
+        ship.setUsed(used);
+        ship.setProdDate(prodDate);
+        return ship;
+    }
+
+    private Double legacyRating(Ship ship) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(ship.getProdDate());
+        int year = cal.get(Calendar.YEAR);
+
+        BigDecimal raiting = new BigDecimal((80 * ship.getSpeed() * (ship.getUsed() ? 0.5 : 1)) / (3019 - year + 1));
+        raiting = raiting.setScale(2, RoundingMode.HALF_UP);
+        return raiting.doubleValue();
+    }
+}
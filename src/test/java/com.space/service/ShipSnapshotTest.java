@@ -0,0 +1,230 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.utils.TestDataSourceConfig;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.model.ShipView;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = TestDataSourceConfig.class)
+@TestPropertySource(properties = "cosmoport.snapshot.enabled=true")
+@Sql(scripts = "classpath:test.sql", config = @SqlConfig(encoding = "UTF-8"))
+public class ShipSnapshotTest {
+
+    private ShipService service;
+    private ShipSnapshot snapshot;
+
+    @Before
+    public void setup() {
+        //test.sql recreates the table behind the service
+        snapshot.reload();
+    }
+
+    //test1
+    @Test
+    public void snapshotMatchesDatabaseForFilters() {
+        for (ShipFilter filter : filters()) {
+            for (ShipOrder order : ShipOrder.values()) {
+                assertSameResult(filter, order);
+            }
+        }
+    }
+
+    //test2
+    @Test
+    public void snapshotFollowsWrites() {
+        Long id = service.createShip(newShip("Rocinante")).getId();
+
+        //a batch reaches the listeners as one change
+        String version = service.getTableVersion();
+        service.createShips(Arrays.asList(newShip("Nostromo"), newShip("Sulaco"), newShip("Serenity")));
+        assertTrue("Пакет должен менять версию таблицы один раз.",
+                changeCount(service.getTableVersion()) == changeCount(version) + 1);
+
+        Ship edit = new Ship();
+        edit.setPlanet("Earth");
+        edit.setSpeed(0.02);
+        service.editShip(id, edit, null);
+        service.editShip(7L, edit, null);
+        service.deleteById(3L);
+
+        for (ShipFilter filter : filters()) {
+            for (ShipOrder order : ShipOrder.values()) {
+                assertSameResult(filter, order);
+            }
+        }
+    }
+
+    //test3
+    @Test
+    public void incrementalWritesMatchRebuild() {
+        Random random = new Random(42);
+        TreeMap<Long, Ship> ships = new TreeMap<>();
+        ShipColumns.Builder builder = new ShipColumns.Builder(16);
+        for (long id = 1; id <= 200; id++) {
+            Ship ship = randomShip(random, id);
+            ships.put(id, ship);
+            builder.add(ship);
+        }
+        ShipColumns columns = builder.build();
+
+        for (int write = 0; write < 2000; write++) {
+            long id = 1 + random.nextInt(300);
+            int kind = random.nextInt(4);
+            if (kind == 0) {
+                ships.remove(id);
+                columns = columns.without(id);
+            } else if (kind == 1) {
+                //a rerate batch, ids the snapshot does not have are skipped
+                Map<Long, Double> ratings = new HashMap<>();
+                for (int i = 0; i < 5; i++) {
+                    long rated = 1 + random.nextInt(300);
+                    Double rating = random.nextInt(10) == 0 ? null : random.nextInt(500) / 100.0;
+                    ratings.put(rated, rating);
+                    if (ships.containsKey(rated))
+                        ships.get(rated).setRating(rating);
+                }
+                columns = columns.withRatings(ratings);
+            } else {
+                Ship ship = randomShip(random, id);
+                ships.put(id, ship);
+                columns = columns.with(ship);
+            }
+        }
+
+        ShipColumns.Builder rebuilt = new ShipColumns.Builder(ships.size());
+        ships.values().forEach(rebuilt::add);
+        ShipColumns expected = rebuilt.build();
+
+        for (ShipFilter filter : filters()) {
+            for (ShipOrder order : ShipOrder.values()) {
+                PageRequest all = PageRequest.of(0, ships.size() + 1);
+                assertTrue("Снимок после записей должен совпадать с построенным заново для order " + order,
+                        describe(columns.find(filter, order, all)).equals(describe(expected.find(filter, order, all))));
+            }
+        }
+    }
+
+    private static Ship newShip(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MILITARY);
+        ship.setProdDate(new Date(32998274577071L));
+        ship.setSpeed(0.91);
+        ship.setCrewSize(6);
+        return ship;
+    }
+
+    private static long changeCount(String tableVersion) {
+        return Long.parseLong(tableVersion.substring(tableVersion.indexOf('-') + 1));
+    }
+
+    private static Ship randomShip(Random random, long id) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        //few distinct values, so that the sort columns have ties and the dictionaries are shared
+        ship.setName(random.nextInt(10) == 0 ? null : "Ship " + random.nextInt(30));
+        ship.setPlanet("Planet " + random.nextInt(5));
+        ship.setShipType(ShipType.values()[random.nextInt(ShipType.values().length)]);
+        ship.setProdDate(random.nextInt(10) == 0 ? null : new Date(32503672800000L + random.nextInt(20) * 31536000000L));
+        ship.setUsed(random.nextBoolean());
+        ship.setSpeed(random.nextInt(10) == 0 ? null : random.nextInt(10) / 10.0);
+        ship.setCrewSize(1 + random.nextInt(5000));
+        ship.setRating(random.nextInt(10) == 0 ? null : random.nextInt(20) / 4.0);
+        return ship;
+    }
+
+    private void assertSameResult(ShipFilter filter, ShipOrder order) {
+        assertTrue("Фильтр должен вычисляться снимком.", snapshot.canEvaluate(filter));
+
+        Page<ShipView> fromSnapshot = service.findShips(filter, order, 1, 4);
+        Page<ShipView> fromDatabase = service.gelAllShips(service.filterBy(filter),
+                PageRequest.of(1, 4, Sort.by(order.getFieldName()).and(Sort.by("id"))));
+
+        assertTrue("Количество из снимка должно совпадать с базой для order " + order,
+                fromSnapshot.getTotalElements() == fromDatabase.getTotalElements()
+                        && service.countShips(filter) == fromDatabase.getTotalElements());
+        assertTrue("Страница из снимка должна совпадать с базой для order " + order,
+                describe(fromSnapshot).equals(describe(fromDatabase)));
+    }
+
+    private List<String> describe(Page<ShipView> page) {
+        List<String> rows = new ArrayList<>();
+        for (ShipView ship : page) {
+            rows.add(ship.getId() + "|" + ship.getName() + "|" + ship.getPlanet() + "|" + ship.getShipType() + "|"
+                    + ship.getProdDate() + "|" + ship.isUsed() + "|" + ship.getSpeed() + "|"
+                    + ship.getCrewSize() + "|" + ship.getRating());
+        }
+        return rows;
+    }
+
+    private List<ShipFilter> filters() {
+        List<ShipFilter> filters = new ArrayList<>();
+        filters.add(new ShipFilter());
+        filters.add(filter(f -> f.setName("ER")));
+        filters.add(filter(f -> f.setPlanet("ur")));
+        filters.add(filter(f -> {
+            f.setShipType(ShipType.MILITARY);
+            f.setAfter(32503672800000L);
+            f.setBefore(32850741600000L);
+        }));
+        filters.add(filter(f -> {
+            f.setIsUsed(false);
+            f.setMinSpeed(0.3);
+            f.setMaxSpeed(0.7);
+        }));
+        filters.add(filter(f -> {
+            f.setIsUsed(true);
+            f.setMinCrewSize(500);
+            f.setMaxRating(3.0);
+        }));
+        filters.add(filter(f -> {
+            f.setMinRating(1.0);
+            f.setMaxCrewSize(4000);
+            f.setBefore(32976972000000L);
+        }));
+        return filters;
+    }
+
+    private ShipFilter filter(Consumer<ShipFilter> setup) {
+        ShipFilter filter = new ShipFilter();
+        setup.accept(filter);
+        return filter;
+    }
+
+    @Autowired
+    public void setService(ShipService service) {
+        this.service = service;
+    }
+
+    @Autowired
+    public void setSnapshot(ShipSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+}
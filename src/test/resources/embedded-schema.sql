@@ -0,0 +1,14 @@
+CREATE TABLE ship
+(
+    id       BIGINT      NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(50) NULL,
+    planet   VARCHAR(50) NULL,
+    shipType VARCHAR(9)  NULL,
+    prodDate DATE        NULL,
+    isUsed   BIT         NULL,
+    speed    DOUBLE      NULL,
+    crewSize INT         NULL,
+    rating   DOUBLE      NULL,
+    version  BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
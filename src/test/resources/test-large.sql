@@ -0,0 +1,10 @@
+insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
+select s1.name, s2.planet, s3.shipType, s1.prodDate, s2.isUsed, s3.speed, s1.crewSize, s1.rating
+from ship s1,
+     ship s2,
+     ship s3;
+
+insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
+select s.name, s.planet, s.shipType, s.prodDate, s.isUsed, s.speed, s.crewSize, s.rating
+from ship s,
+     (select 1 union all select 2 union all select 3) x;